@@ -0,0 +1,76 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.blockartistry.mod.DynSurround.client.sound.SoundEffect;
+import org.blockartistry.mod.DynSurround.data.ConditionTokens;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * SoundEffect.matches against the regex the conditions were written as.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConditionBenchmark {
+
+	private List<SoundEffect> sounds;
+	private Pattern[] patterns;
+	private String conditions;
+	private long mask;
+
+	@Setup
+	public void setup() {
+		this.sounds = Stubs.sounds();
+		this.patterns = new Pattern[this.sounds.size()];
+		for (int i = 0; i < this.patterns.length; i++)
+			this.patterns[i] = Pattern.compile(this.sounds.get(i).conditions);
+		final ConditionTokens.Builder builder = Stubs.conditions();
+		this.conditions = builder.toString();
+		this.mask = builder.getMask();
+	}
+
+	@Benchmark
+	public void soundEffectMatches(final Blackhole bh) {
+		for (final SoundEffect sound : this.sounds)
+			bh.consume(sound.matches(this.conditions, this.mask));
+	}
+
+	@Benchmark
+	public void regexMatches(final Blackhole bh) {
+		for (final Pattern pattern : this.patterns)
+			bh.consume(pattern.matcher(this.conditions).matches());
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.blockartistry.mod.DynSurround.client.footsteps.engine.implem.AcousticsLibrary;
+import org.blockartistry.mod.DynSurround.client.footsteps.engine.interfaces.EventType;
+import org.blockartistry.mod.DynSurround.client.footsteps.engine.interfaces.INamedAcoustic;
+import org.blockartistry.mod.DynSurround.client.footsteps.engine.interfaces.IOptions;
+import org.blockartistry.mod.DynSurround.client.footsteps.engine.interfaces.ISoundPlayer;
+import org.blockartistry.mod.DynSurround.client.footsteps.mcpackage.implem.BasicBlockMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.minecraft.block.Block;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.SoundEvent;
+
+/*
+ * Footstep block map and acoustic name resolution.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FootstepsBenchmark {
+
+	private static final class NullPlayer implements ISoundPlayer {
+		private final Random random = new Random(42L);
+
+		@Override
+		public void playSound(final Object location, final SoundEvent sound, final float volume,
+				final float pitch, final IOptions options) {
+		}
+
+		@Override
+		public Random getRNG() {
+			return this.random;
+		}
+	}
+
+	private static final class NamedStub implements INamedAcoustic {
+		private final String name;
+
+		public NamedStub(final String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public void playSound(final ISoundPlayer player, final Object location, final EventType event,
+				final IOptions inputOptions) {
+			player.playSound(location, null, 1.0F, 1.0F, inputOptions);
+		}
+	}
+
+	private static final class Library extends AcousticsLibrary {
+		private final ISoundPlayer player = new NullPlayer();
+
+		@Override
+		protected ISoundPlayer mySoundPlayer() {
+			return this.player;
+		}
+
+		@Override
+		public void think() {
+		}
+	}
+
+	private final BasicBlockMap blockMap = new BasicBlockMap();
+	private final Library library = new Library();
+	private Block block;
+
+	@Setup
+	public void setup() {
+		Stubs.bootstrap();
+		this.block = Blocks.TALLGRASS;
+
+		// Same key syntax as the blockmap section of the acoustics config,
+		// resolved through the game registry populated by the bootstrap.
+		this.blockMap.register("minecraft:tallgrass+foliage", "straw");
+		this.blockMap.register("minecraft:tallgrass^2+foliage", "brush");
+		this.blockMap.register("minecraft:tallgrass+messy", "MESSY_GROUND");
+		if (!this.blockMap.hasEntryForBlock(this.block))
+			throw new IllegalStateException("Block map entries were not registered");
+
+		for (final String name : new String[] { "stone", "wood", "grass", "straw", "brush", "leaves" })
+			this.library.addAcoustic(new NamedStub(name));
+	}
+
+	@Benchmark
+	public void blockMapSubstrate(final Blackhole bh) {
+		bh.consume(this.blockMap.getBlockMapSubstrate(this.block, 2, "foliage"));
+		bh.consume(this.blockMap.getBlockMapSubstrate(this.block, 5, "foliage"));
+		bh.consume(this.blockMap.getBlockMapSubstrate(this.block, 0, "carpet"));
+	}
+
+	@Benchmark
+	public void playAcousticSingle() {
+		this.library.playAcoustic(this, "grass", EventType.WALK, null);
+	}
+
+	@Benchmark
+	public void playAcousticCompound() {
+		this.library.playAcoustic(this, "grass,straw,leaves", EventType.WALK, null);
+	}
+}
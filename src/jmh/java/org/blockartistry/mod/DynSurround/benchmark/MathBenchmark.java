@@ -0,0 +1,111 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.blockartistry.mod.DynSurround.util.MathStuff;
+import org.blockartistry.mod.DynSurround.util.XorShiftRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Table based trig and XorShiftRandom against their java.lang/java.util
+ * counterparts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MathBenchmark {
+
+	private static final int SAMPLES = 256;
+
+	private final float[] angles = new float[SAMPLES];
+	private final float[] xs = new float[SAMPLES];
+	private final float[] ys = new float[SAMPLES];
+
+	private final Random javaRandom = new Random(42L);
+	private final XorShiftRandom xorShiftRandom = new XorShiftRandom(42L);
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(1L);
+		for (int i = 0; i < SAMPLES; i++) {
+			this.angles[i] = (random.nextFloat() - 0.5F) * 4.0F * MathStuff.PI_F;
+			this.xs[i] = random.nextFloat() * 2.0F - 1.0F;
+			this.ys[i] = random.nextFloat() * 2.0F - 1.0F;
+		}
+	}
+
+	@Benchmark
+	public void mathStuffSinCos(final Blackhole bh) {
+		for (int i = 0; i < SAMPLES; i++) {
+			bh.consume(MathStuff.sin(this.angles[i]));
+			bh.consume(MathStuff.cos(this.angles[i]));
+		}
+	}
+
+	@Benchmark
+	public void javaSinCos(final Blackhole bh) {
+		for (int i = 0; i < SAMPLES; i++) {
+			bh.consume((float) Math.sin(this.angles[i]));
+			bh.consume((float) Math.cos(this.angles[i]));
+		}
+	}
+
+	@Benchmark
+	public void mathStuffAtan2(final Blackhole bh) {
+		for (int i = 0; i < SAMPLES; i++)
+			bh.consume(MathStuff.atan2(this.ys[i], this.xs[i]));
+	}
+
+	@Benchmark
+	public void javaAtan2(final Blackhole bh) {
+		for (int i = 0; i < SAMPLES; i++)
+			bh.consume((float) Math.atan2(this.ys[i], this.xs[i]));
+	}
+
+	@Benchmark
+	public void xorShiftRandom(final Blackhole bh) {
+		for (int i = 0; i < SAMPLES; i++) {
+			bh.consume(this.xorShiftRandom.nextInt(100));
+			bh.consume(this.xorShiftRandom.nextFloat());
+		}
+	}
+
+	@Benchmark
+	public void javaRandom(final Blackhole bh) {
+		for (int i = 0; i < SAMPLES; i++) {
+			bh.consume(this.javaRandom.nextInt(100));
+			bh.consume(this.javaRandom.nextFloat());
+		}
+	}
+}
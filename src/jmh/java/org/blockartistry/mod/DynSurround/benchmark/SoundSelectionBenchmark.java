@@ -0,0 +1,143 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.blockartistry.mod.DynSurround.client.sound.SoundEffect;
+import org.blockartistry.mod.DynSurround.data.BiomeRegistry;
+import org.blockartistry.mod.DynSurround.data.BlockRegistry;
+import org.blockartistry.mod.DynSurround.data.ConditionTokens;
+import org.blockartistry.mod.DynSurround.data.SoundCandidateCache;
+import org.blockartistry.mod.DynSurround.util.XorShiftRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Biomes;
+import net.minecraft.init.Blocks;
+import net.minecraft.world.biome.Biome;
+
+/*
+ * Sound selection as done by BiomeRegistry and BlockRegistry. The
+ * registries are built from the Stubs configs rather than the Forge loader
+ * scan: tall grass carries the sound mix in the block state table and
+ * Plains carries it as background and spot sounds. blockRegistryMiss is the
+ * state table lookup for a block with no entry. candidateSelect is the
+ * candidate cache on its own, and legacyLinearSelect is the selection as it
+ * was before the alias tables: filter into a new list, then walk the
+ * weights.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SoundSelectionBenchmark {
+
+	private final XorShiftRandom random = new XorShiftRandom(42L);
+	private List<SoundEffect> sounds;
+	private SoundCandidateCache cache;
+	private IBlockState state;
+	private IBlockState registered;
+	private Biome biome;
+	private String conditions;
+	private long mask;
+
+	@Setup
+	public void setup() {
+		final ConditionTokens.Builder builder = Stubs.conditions();
+		this.conditions = builder.toString();
+		this.mask = builder.getMask();
+		this.sounds = Stubs.sounds();
+		this.cache = new SoundCandidateCache(this.sounds);
+		this.state = Stubs.block().getDefaultState();
+		this.registered = Blocks.TALLGRASS.getDefaultState();
+		this.biome = Biomes.PLAINS;
+		BlockRegistry.initialize(Stubs.blockConfig());
+		BiomeRegistry.initialize(Stubs.biomeConfig());
+		if (!BlockRegistry.hasEffectsOrSounds(this.registered))
+			throw new IllegalStateException("Block registry entry was not registered");
+		if (BiomeRegistry.getSounds(this.biome, this.conditions, this.mask).isEmpty())
+			throw new IllegalStateException("Biome registry entry was not registered");
+	}
+
+	@Benchmark
+	public Object candidateSelect() {
+		return this.cache.get(this.conditions, this.mask).next(this.random);
+	}
+
+	@Benchmark
+	public Object legacyLinearSelect() {
+		int totalWeight = 0;
+		final List<SoundEffect> candidates = new ArrayList<SoundEffect>();
+		for (final SoundEffect s : this.sounds)
+			if (s.matches(this.conditions, this.mask)) {
+				candidates.add(s);
+				totalWeight += s.weight;
+			}
+		if (totalWeight <= 0)
+			return null;
+
+		if (candidates.size() == 1)
+			return candidates.get(0);
+
+		int targetWeight = this.random.nextInt(totalWeight);
+		int i = 0;
+		for (i = candidates.size(); (targetWeight -= candidates.get(i - 1).weight) >= 0; i--)
+			;
+
+		return candidates.get(i - 1);
+	}
+
+	@Benchmark
+	public Object blockRegistryMiss() {
+		return BlockRegistry.getSound(this.state, this.random, this.conditions, this.mask);
+	}
+
+	@Benchmark
+	public Object blockRegistryHit() {
+		return BlockRegistry.getSound(this.registered, this.random, this.conditions, this.mask);
+	}
+
+	@Benchmark
+	public Object biomeSound() {
+		return BiomeRegistry.getSound(this.biome, this.conditions, this.mask);
+	}
+
+	@Benchmark
+	public Object biomeSounds() {
+		return BiomeRegistry.getSounds(this.biome, this.conditions, this.mask);
+	}
+
+	@Benchmark
+	public Object biomeSpotSound() {
+		return BiomeRegistry.getSpotSound(this.biome, this.conditions, this.mask, this.random);
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.blockartistry.mod.DynSurround.client.sound.SoundEffect;
+import org.blockartistry.mod.DynSurround.data.ConditionTokens;
+import org.blockartistry.mod.DynSurround.data.config.BiomeConfig;
+import org.blockartistry.mod.DynSurround.data.config.BlockConfig;
+import org.blockartistry.mod.DynSurround.data.config.SoundConfig;
+
+import com.google.common.collect.ImmutableList;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.init.Bootstrap;
+
+/*
+ * Stand-ins for game objects so the benchmarks can run without a client.
+ */
+public final class Stubs {
+
+	private static boolean bootstrapped = false;
+
+	/*
+	 * The condition styles found in the shipped biome configs, with their
+	 * weights.
+	 */
+	private static final String[] CONDITIONS = { "(?i)(?!.*#raining#.*)(.*#day#.*)",
+			"(?i)(?!.*#raining#.*)(.*#night#.*)", "(?i).*#raining#.*", ".*", "(?i)(.*#day#.*)",
+			"(?i)(?!.*#day#.*|.*#hurt#.*)(.*#raining#.*)", "(?i).*#day#.*#raining#.*" };
+	private static final int[] WEIGHTS = { 10, 10, 20, 5, 15, 10, 10 };
+
+	private Stubs() {
+	}
+
+	public static synchronized void bootstrap() {
+		if (!bootstrapped) {
+			Bootstrap.register();
+			bootstrapped = true;
+		}
+	}
+
+	/*
+	 * Condition string and mask built the same way EnvironState does.
+	 */
+	public static ConditionTokens.Builder conditions() {
+		final ConditionTokens.Builder builder = new ConditionTokens.Builder();
+		builder.append("day").append("OVERWORLD").append("raining").append("season").terminate();
+		builder.append("hurt").append("tcwarm").terminate();
+		return builder;
+	}
+
+	public static Block block() {
+		bootstrap();
+		return new Block(Material.ROCK);
+	}
+
+	private static SoundConfig soundConfig(final String conditions, final int weight) {
+		final SoundConfig config = new SoundConfig();
+		config.conditions = conditions;
+		config.weight = weight;
+		return config;
+	}
+
+	/*
+	 * Sound effects without a sound event so nothing gets registered.
+	 */
+	public static SoundEffect sound(final String conditions, final int weight) {
+		return new SoundEffect(soundConfig(conditions, weight));
+	}
+
+	public static List<SoundEffect> sounds() {
+		final List<SoundEffect> sounds = new ArrayList<SoundEffect>();
+		for (int i = 0; i < CONDITIONS.length; i++)
+			sounds.add(sound(CONDITIONS[i], WEIGHTS[i]));
+		return sounds;
+	}
+
+	/*
+	 * Block config giving tall grass the sound mix at a chance of 1 so every
+	 * lookup reaches the selection. The block registry drops sounds without
+	 * a name, so these go through the sound event registry.
+	 */
+	public static BlockConfig blockConfig() {
+		bootstrap();
+		final List<SoundConfig> sounds = new ArrayList<SoundConfig>();
+		for (int i = 0; i < CONDITIONS.length; i++) {
+			final SoundConfig sound = soundConfig(CONDITIONS[i], WEIGHTS[i]);
+			sound.sound = "minecraft:block.grass.step";
+			sounds.add(sound);
+		}
+
+		final BlockConfig.Entry entry = new BlockConfig.Entry();
+		entry.blocks = ImmutableList.of("minecraft:tallgrass");
+		entry.chance = 1;
+		entry.sounds = sounds;
+
+		final BlockConfig config = new BlockConfig();
+		config.entries = ImmutableList.of(entry);
+		return config;
+	}
+
+	/*
+	 * Biome config giving Plains the sound mix both as background and as
+	 * spot sounds, with a spot chance of 1 so every lookup reaches the
+	 * selection.
+	 */
+	public static BiomeConfig biomeConfig() {
+		bootstrap();
+		final List<SoundConfig> sounds = new ArrayList<SoundConfig>();
+		for (int i = 0; i < CONDITIONS.length; i++) {
+			sounds.add(soundConfig(CONDITIONS[i], WEIGHTS[i]));
+			final SoundConfig spot = soundConfig(CONDITIONS[i], WEIGHTS[i]);
+			spot.spotSound = Boolean.TRUE;
+			sounds.add(spot);
+		}
+
+		final BiomeConfig.Entry entry = new BiomeConfig.Entry();
+		entry.biomeName = "Plains";
+		entry.spotSoundChance = 1;
+		entry.sounds = sounds;
+
+		final BiomeConfig config = new BiomeConfig();
+		config.entries = ImmutableList.of(entry);
+		return config;
+	}
+}
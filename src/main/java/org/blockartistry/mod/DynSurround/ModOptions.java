@@ -52,13 +52,17 @@ public final class ModOptions {
 	public static final String CATEGORY_LOGGING_CONTROL = "logging";
 	public static final String CONFIG_ENABLE_DEBUG_LOGGING = "Enable Debug Logging";
 	public static final String CONFIG_ENABLE_ONLINE_VERSION_CHECK = "Enable Online Version Check";
+	public static final String CONFIG_ENABLE_HANDLER_TIMING = "Enable Handler Timing";
 	private static final List<String> loggingSort = Arrays.asList(CONFIG_ENABLE_ONLINE_VERSION_CHECK,
-			CONFIG_ENABLE_DEBUG_LOGGING);
+			CONFIG_ENABLE_DEBUG_LOGGING, CONFIG_ENABLE_HANDLER_TIMING);
 
 	@Parameter(category = CATEGORY_LOGGING_CONTROL, property = CONFIG_ENABLE_DEBUG_LOGGING, defaultValue = "false")
 	@Comment("Enables/disables debug logging of the mod")
 	@RestartRequired
 	public static boolean enableDebugLogging = false;
+	@Parameter(category = CATEGORY_LOGGING_CONTROL, property = CONFIG_ENABLE_HANDLER_TIMING, defaultValue = "false")
+	@Comment("Records timing histograms for the client effect handlers")
+	public static boolean enableHandlerTiming = false;
 
 	public static final String CATEGORY_RAIN = "rain";
 	public static final String CONFIG_RAIN_VOLUME = "Sound Level";
@@ -66,8 +70,14 @@ public final class ModOptions {
 	public static final String CONFIG_ALWAYS_OVERRIDE_SOUND = "Always Override Sound";
 	public static final String CONFIG_ALLOW_DESERT_DUST = "Desert Dust";
 	public static final String CONFIG_RESET_RAIN_ON_SLEEP = "Reset Rain on Sleep";
+	public static final String CONFIG_RAIN_ADAPTIVE_DETAIL = "Adaptive Detail";
+	public static final String CONFIG_RAIN_TARGET_FPS = "Adaptive Target FPS";
+	public static final String CONFIG_RAIN_MIN_RANGE = "Adaptive Min Range";
+	public static final String CONFIG_RAIN_SPLASH_CAP = "Splash Particle Cap";
 	private static final List<String> rainSort = Arrays.asList(CONFIG_RAIN_VOLUME, CONFIG_ALLOW_DESERT_DUST,
-			CONFIG_RESET_RAIN_ON_SLEEP, CONFIG_ALWAYS_OVERRIDE_SOUND, CONFIG_RAIN_PARTICLE_BASE);
+			CONFIG_RESET_RAIN_ON_SLEEP, CONFIG_ALWAYS_OVERRIDE_SOUND, CONFIG_RAIN_PARTICLE_BASE,
+			CONFIG_RAIN_ADAPTIVE_DETAIL, CONFIG_RAIN_TARGET_FPS, CONFIG_RAIN_MIN_RANGE,
+			CONFIG_RAIN_SPLASH_CAP);
 
 	@Parameter(category = CATEGORY_RAIN, property = CONFIG_RAIN_VOLUME, defaultValue = "1.0")
 	@MinMaxFloat(min = 0.0F, max = 1.0F)
@@ -83,6 +93,21 @@ public final class ModOptions {
 	@Parameter(category = CATEGORY_RAIN, property = CONFIG_RESET_RAIN_ON_SLEEP, defaultValue = "true")
 	@Comment("Reset rain/thunder when all players sleep")
 	public static boolean resetRainOnSleep = true;
+	@Parameter(category = CATEGORY_RAIN, property = CONFIG_RAIN_ADAPTIVE_DETAIL, defaultValue = "false")
+	@Comment("Reduce rain radius, splash particles and splash sounds when rendering the storm pushes frame time over the target")
+	public static boolean rainAdaptiveDetail = false;
+	@Parameter(category = CATEGORY_RAIN, property = CONFIG_RAIN_TARGET_FPS, defaultValue = "60")
+	@MinMaxInt(min = 10, max = 240)
+	@Comment("Frame rate below which rain detail is reduced")
+	public static int rainTargetFPS = 60;
+	@Parameter(category = CATEGORY_RAIN, property = CONFIG_RAIN_MIN_RANGE, defaultValue = "4")
+	@MinMaxInt(min = 1, max = 10)
+	@Comment("Smallest rain column radius adaptive detail will reduce to")
+	public static int rainMinRange = 4;
+	@Parameter(category = CATEGORY_RAIN, property = CONFIG_RAIN_SPLASH_CAP, defaultValue = "1024")
+	@MinMaxInt(min = 64, max = 8192)
+	@Comment("Maximum number of each kind of splash particle alive at once")
+	public static int splashParticleCap = 1024;
 
 	public static final String CATEGORY_FOG = "fog";
 	public static final String CONFIG_ALLOW_DESERT_FOG = "Desert Fog";
@@ -126,8 +151,10 @@ public final class ModOptions {
 	public static final String CONFIG_MAX_RAIN_STRENGTH = "Default Maximum Rain Strength";
 	public static final String CONFIG_FX_RANGE = "Special Effect Range";
 	public static final String CONFIG_FANCY_CLOUD_HANDLING = "Fancy Cloud Handling";
+	public static final String CONFIG_CLIENT_TICK_BUDGET = "Client Tick Budget";
 	private static final List<String> generalSort = ImmutableList.<String> builder()
-			.add(CONFIG_FANCY_CLOUD_HANDLING, CONFIG_FX_RANGE, CONFIG_MIN_RAIN_STRENGTH, CONFIG_MAX_RAIN_STRENGTH)
+			.add(CONFIG_FANCY_CLOUD_HANDLING, CONFIG_FX_RANGE, CONFIG_MIN_RAIN_STRENGTH, CONFIG_MAX_RAIN_STRENGTH,
+					CONFIG_CLIENT_TICK_BUDGET)
 			.build();
 
 	@Parameter(category = CATEGORY_GENERAL, property = CONFIG_MIN_RAIN_STRENGTH, defaultValue = "0.0")
@@ -146,6 +173,10 @@ public final class ModOptions {
 	@Comment("Adjust cloud graphics based on configured cloud height")
 	@RestartRequired
 	public static boolean enableFancyCloudHandling = true;
+	@Parameter(category = CATEGORY_GENERAL, property = CONFIG_CLIENT_TICK_BUDGET, defaultValue = "0")
+	@MinMaxInt(min = 0, max = 50000)
+	@Comment("Microseconds per client tick for effect processing before non-critical work is deferred (0 for no limit)")
+	public static int clientTickBudget = 0;
 
 	public static final String CATEGORY_AURORA = "aurora";
 	public static final String CONFIG_AURORA_ENABLED = "Enabled";
@@ -182,7 +213,10 @@ public final class ModOptions {
 	public static final String CATEGORY_BIOMES = "biomes";
 	public static final String CONFIG_BIOME_CONFIG_FILES = "Config Files";
 	public static final String CONFIG_BIOME_ALIASES = "Biome Alias";
-	private static final List<String> biomesSort = Arrays.asList(CONFIG_BIOME_CONFIG_FILES, CONFIG_BIOME_ALIASES);
+	public static final String CONFIG_BIOME_SURVEY_RANGE = "Survey Range";
+	public static final String CONFIG_BIOME_SURVEY_FALLOFF = "Survey Falloff";
+	private static final List<String> biomesSort = Arrays.asList(CONFIG_BIOME_CONFIG_FILES, CONFIG_BIOME_ALIASES,
+			CONFIG_BIOME_SURVEY_RANGE, CONFIG_BIOME_SURVEY_FALLOFF);
 
 	@Parameter(category = CATEGORY_BIOMES, property = CONFIG_BIOME_CONFIG_FILES, defaultValue = "")
 	@Comment("Configuration files for configuring Biome Registry")
@@ -192,6 +226,13 @@ public final class ModOptions {
 	@Comment("Biome alias list")
 	@RestartRequired
 	public static String[] biomeAliases = {};
+	@Parameter(category = CATEGORY_BIOMES, property = CONFIG_BIOME_SURVEY_RANGE, defaultValue = "6")
+	@MinMaxInt(min = 1, max = 64)
+	@Comment("Block radius around the player to survey for biome sounds and fog")
+	public static int biomeSurveyRange = 6;
+	@Parameter(category = CATEGORY_BIOMES, property = CONFIG_BIOME_SURVEY_FALLOFF, defaultValue = "none")
+	@Comment("Weighting of surveyed biomes by distance from the player (none, linear, gaussian)")
+	public static String biomeSurveyFalloff = "none";
 
 	public static final String CATEGORY_DIMENSIONS = "dimensions";
 	public static final String CONFIG_DIMENSION_CONFIG_FILES = "Config Files";
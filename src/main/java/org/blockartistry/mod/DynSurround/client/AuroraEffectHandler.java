@@ -61,6 +61,18 @@ public final class AuroraEffectHandler implements IClientEffectHandler {
 		}
 	}
 
+	public static void removeAurora(final AuroraData data) {
+		synchronized (auroras) {
+			auroras.remove(data);
+		}
+	}
+
+	public static void clearAuroras() {
+		synchronized (auroras) {
+			auroras.clear();
+		}
+	}
+
 	public AuroraEffectHandler() {
 	}
 
@@ -24,12 +24,15 @@
 
 package org.blockartistry.mod.DynSurround.client;
 
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.blockartistry.mod.DynSurround.ModOptions;
 import org.blockartistry.mod.DynSurround.client.EnvironStateHandler.EnvironState;
 import org.blockartistry.mod.DynSurround.data.FakeBiome;
 
 import gnu.trove.map.hash.TObjectIntHashMap;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 import net.minecraft.world.biome.Biome;
@@ -39,65 +42,266 @@ import net.minecraftforge.fml.relauncher.SideOnly;
 @SideOnly(Side.CLIENT)
 public final class BiomeSurveyHandler implements IClientEffectHandler {
 
-	private static final int BIOME_SURVEY_RANGE = 6;
+	/*
+	 * How much a column counts toward the survey based on its distance
+	 * from the player. NONE counts every column in the square equally.
+	 */
+	public static enum Falloff {
+		NONE, LINEAR, GAUSSIAN;
+
+		private static String configName = null;
+		private static Falloff configFalloff = NONE;
+
+		/*
+		 * The config string only changes when the config is loaded, so the
+		 * parse is redone only when a different value is handed in. A null
+		 * name parses to NONE, which is also the initial cached value.
+		 */
+		public static Falloff getFalloff(final String name) {
+			if (name == null ? configName != null : !name.equals(configName)) {
+				configName = name;
+				configFalloff = parse(name);
+			}
+			return configFalloff;
+		}
+
+		private static Falloff parse(final String name) {
+			if (name == null)
+				return NONE;
+			try {
+				return Falloff.valueOf(name.toUpperCase(Locale.ROOT));
+			} catch (final IllegalArgumentException e) {
+				return NONE;
+			}
+		}
+	}
+
+	// Weight of the column the player is standing in when a falloff
+	// is applied.
+	private static final int FALLOFF_SCALE = 64;
 
 	private static int area;
 	private static final TObjectIntHashMap<Biome> weights = new TObjectIntHashMap<Biome>();
 
-	private static Biome lastPlayerBiome = null;
+	// Ring buffer of the biomes for the columns currently in the survey
+	// window. Indexed by world coordinate modulo the window size so that
+	// sliding the window only touches the row/column entering and leaving.
+	private static Biome[] columns = null;
+	private static int windowSize = 0;
+	private static int surveyRange = -1;
+	private static boolean surveyValid = false;
+
+	// Falloff expressed as weights for nested squares around the player.
+	// A column at Chebyshev distance d receives the sum of the square
+	// weights for k >= d.
+	private static Falloff surveyFalloff = Falloff.NONE;
+	private static int[] squareWeights = null;
+	private static int weightedArea = 0;
+	private static boolean weightedValid = false;
+
+	// Bumped whenever the survey weights change
+	private static int version = 0;
+
+	private static World lastWorld = null;
 	private static int lastDimension = 0;
 	private static int lastPlayerX = 0;
-	private static int lastPlayerY = 0;
 	private static int lastPlayerZ = 0;
 
 	public static int getArea() {
 		return area;
 	}
 
+	public static int getVersion() {
+		return version;
+	}
+
 	public static TObjectIntHashMap<Biome> getBiomes() {
 		return weights;
 	}
 
+	private static int slot(final int x, final int z) {
+		return Math.floorMod(x, windowSize) * windowSize + Math.floorMod(z, windowSize);
+	}
+
+	private static void addColumn(final World world, final int x, final int z) {
+		final Biome biome = ChunkBiomeCache.getBiome(world, x, z);
+		columns[slot(x, z)] = biome;
+		weights.adjustOrPutValue(biome, 1, 1);
+	}
+
+	private static void removeColumn(final int x, final int z) {
+		final int idx = slot(x, z);
+		final Biome biome = columns[idx];
+		columns[idx] = null;
+		if (biome != null && weights.adjustOrPutValue(biome, -1, 0) <= 0)
+			weights.remove(biome);
+	}
+
+	private static float falloff(final Falloff falloff, final int distance, final int range) {
+		switch (falloff) {
+		case LINEAR:
+			return (float) (range + 1 - distance) / (float) (range + 1);
+		case GAUSSIAN:
+			final float sigma = (range + 1) / 2.0F;
+			return (float) Math.exp(-(distance * distance) / (2.0F * sigma * sigma));
+		default:
+			return 1.0F;
+		}
+	}
+
+	private static void configure(final int range, final Falloff falloff) {
+		if (range != surveyRange) {
+			windowSize = range * 2 + 1;
+			columns = new Biome[windowSize * windowSize];
+			surveyValid = false;
+		}
+
+		surveyRange = range;
+		surveyFalloff = falloff;
+		squareWeights = new int[range + 1];
+		weightedArea = 0;
+
+		int previous = 0;
+		for (int k = range; k >= 0; k--) {
+			final int weight = Math.max(Math.round(falloff(falloff, k, range) * FALLOFF_SCALE), previous);
+			squareWeights[k] = weight - previous;
+			weightedArea += squareWeights[k] * (2 * k + 1) * (2 * k + 1);
+			previous = weight;
+		}
+	}
+
 	/*
-	 * Perform a biome survey around the player at the specified range.
+	 * Perform a full biome survey around the player at the specified range.
 	 */
 	public static void doSurvey(final EntityPlayer player, final int range) {
+		version++;
 		area = 0;
 		weights.clear();
-		
+
 		if (EnvironState.getPlayerBiome() instanceof FakeBiome) {
 			area = 1;
 			weights.put(EnvironState.getPlayerBiome(), 1);
+			surveyValid = false;
+			weightedValid = false;
 		} else {
-			final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+			if (range != surveyRange)
+				configure(range, surveyFalloff);
+			else
+				Arrays.fill(columns, null);
+
+			final World world = player.worldObj;
 			final int x = MathHelper.floor_double(player.posX);
 			final int z = MathHelper.floor_double(player.posZ);
 
+			// The histogram comes from the chunk cache. The ring buffer
+			// still needs the individual columns so the window can slide.
+			area = ChunkBiomeCache.survey(world, x - range, z - range, x + range, z + range, weights, 1);
 			for (int dX = -range; dX <= range; dX++)
-				for (int dZ = -range; dZ <= range; dZ++) {
-					area++;
-					pos.setPos(x + dX, 0, z + dZ);
-					final Biome biome = player.worldObj.getBiome(pos);
-					weights.adjustOrPutValue(biome, 1, 1);
-				}
+				for (int dZ = -range; dZ <= range; dZ++)
+					columns[slot(x + dX, z + dZ)] = ChunkBiomeCache.getBiome(world, x + dX, z + dZ);
+
+			surveyValid = true;
+			weightedValid = false;
+		}
+	}
+
+	/*
+	 * Distance weighted survey. The falloff is split into nested squares
+	 * around the player and each square is counted using the per chunk
+	 * prefix sums, so the cost depends on the number of biomes and chunks
+	 * involved rather than the number of columns.
+	 */
+	private static void doWeightedSurvey(final EntityPlayer player) {
+		version++;
+		area = 0;
+		weights.clear();
+		surveyValid = false;
+		weightedValid = false;
+
+		if (EnvironState.getPlayerBiome() instanceof FakeBiome) {
+			area = 1;
+			weights.put(EnvironState.getPlayerBiome(), 1);
+		} else {
+			final World world = player.worldObj;
+			final int x = MathHelper.floor_double(player.posX);
+			final int z = MathHelper.floor_double(player.posZ);
+
+			for (int k = 0; k < squareWeights.length; k++)
+				if (squareWeights[k] > 0)
+					ChunkBiomeCache.survey(world, x - k, z - k, x + k, z + k, weights, squareWeights[k]);
+			area = weightedArea;
+			weightedValid = true;
+		}
+	}
+
+	/*
+	 * Slide the survey window from the last player column to the new one.
+	 * Each step along an axis drops the row/column leaving the window and
+	 * scans the one entering it.
+	 */
+	private static void slideSurvey(final World world, final int fromX, final int fromZ, final int toX,
+			final int toZ) {
+		final int range = surveyRange;
+		version++;
+		int x = fromX;
+		int z = fromZ;
+
+		while (x != toX) {
+			final int step = x < toX ? 1 : -1;
+			final int leaving = x - step * range;
+			final int entering = x + step * (range + 1);
+			for (int dZ = -range; dZ <= range; dZ++) {
+				removeColumn(leaving, z + dZ);
+				addColumn(world, entering, z + dZ);
+			}
+			x += step;
+		}
+
+		while (z != toZ) {
+			final int step = z < toZ ? 1 : -1;
+			final int leaving = z - step * range;
+			final int entering = z + step * (range + 1);
+			for (int dX = -range; dX <= range; dX++) {
+				removeColumn(x + dX, leaving);
+				addColumn(world, x + dX, entering);
+			}
+			z += step;
 		}
 	}
 
 	@Override
 	public void process(final World world, final EntityPlayer player) {
 		final int playerX = MathHelper.floor_double(player.posX);
-		final int playerY = MathHelper.floor_double(player.posY);
 		final int playerZ = MathHelper.floor_double(player.posZ);
 
-		if (lastDimension != EnvironState.getDimensionId() || playerX != lastPlayerX || playerY != lastPlayerY
-				|| playerZ != lastPlayerZ || lastPlayerBiome != EnvironState.getPlayerBiome()) {
-			lastPlayerBiome = EnvironState.getPlayerBiome();
-			lastDimension = EnvironState.getDimensionId();
-			lastPlayerX = playerX;
-			lastPlayerY = playerY;
-			lastPlayerZ = playerZ;
-			doSurvey(player, BIOME_SURVEY_RANGE);
+		final Falloff falloff = Falloff.getFalloff(ModOptions.biomeSurveyFalloff);
+		final boolean reconfigured = surveyRange != ModOptions.biomeSurveyRange || surveyFalloff != falloff;
+		if (reconfigured)
+			configure(ModOptions.biomeSurveyRange, falloff);
+
+		final boolean isFake = EnvironState.getPlayerBiome() instanceof FakeBiome;
+		final boolean moved = playerX != lastPlayerX || playerZ != lastPlayerZ;
+		final boolean worldChanged = lastWorld != world || lastDimension != EnvironState.getDimensionId();
+
+		if (isFake) {
+			// A fake biome survey is just the one entry; only redo it when
+			// something changed.
+			if (area != 1 || !weights.containsKey(EnvironState.getPlayerBiome()))
+				doSurvey(player, surveyRange);
+		} else if (surveyFalloff != Falloff.NONE) {
+			if (!weightedValid || reconfigured || worldChanged || moved)
+				doWeightedSurvey(player);
+		} else if (!surveyValid || reconfigured || worldChanged || Math.abs(playerX - lastPlayerX) >= windowSize
+				|| Math.abs(playerZ - lastPlayerZ) >= windowSize) {
+			doSurvey(player, surveyRange);
+		} else if (moved) {
+			slideSurvey(world, lastPlayerX, lastPlayerZ, playerX, playerZ);
 		}
+
+		lastWorld = world;
+		lastDimension = EnvironState.getDimensionId();
+		lastPlayerX = playerX;
+		lastPlayerZ = playerZ;
 	}
 
 	@Override
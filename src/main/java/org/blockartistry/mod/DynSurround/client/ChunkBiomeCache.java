@@ -0,0 +1,207 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.blockartistry.mod.DynSurround.client;
+
+import gnu.trove.iterator.TObjectIntIterator;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Client side cache of the biome layout of loaded chunks. The biomes of
+ * a chunk do not change once it has been received from the server so the
+ * 16x16 biome array and per biome prefix sums are captured on first
+ * use and reused until the chunk is reloaded or unloaded.
+ *
+ * The client fires ChunkEvent.Load before the chunk data has been filled
+ * in, so the load event only drops any stale entry; the entry itself is
+ * built the first time the chunk is queried.
+ */
+@SideOnly(Side.CLIENT)
+public final class ChunkBiomeCache {
+
+	private static final TLongObjectHashMap<Entry> cache = new TLongObjectHashMap<Entry>();
+	private static World cacheWorld = null;
+
+	private static final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+	private static final class Entry {
+
+		public final Biome[] biomes = new Biome[256];
+
+		// Distinct biomes in the chunk along with a 17x17 prefix sum table
+		// for each so that the count for any rectangle within the chunk
+		// can be had with four lookups.
+		public final Biome[] distinct;
+		public final int[][] sums;
+
+		public Entry(final World world, final Chunk chunk) {
+			final int baseX = chunk.xPosition << 4;
+			final int baseZ = chunk.zPosition << 4;
+			final BlockPos.MutableBlockPos p = new BlockPos.MutableBlockPos();
+			final TObjectIntHashMap<Biome> index = new TObjectIntHashMap<Biome>(4, 0.5F, -1);
+			for (int z = 0; z < 16; z++)
+				for (int x = 0; x < 16; x++) {
+					p.setPos(baseX + x, 0, baseZ + z);
+					final Biome biome = chunk.getBiome(p, world.getBiomeProvider());
+					this.biomes[z << 4 | x] = biome;
+					if (!index.containsKey(biome))
+						index.put(biome, index.size());
+				}
+
+			this.distinct = new Biome[index.size()];
+			this.sums = new int[index.size()][17 * 17];
+			final TObjectIntIterator<Biome> itr = index.iterator();
+			while (itr.hasNext()) {
+				itr.advance();
+				this.distinct[itr.value()] = itr.key();
+			}
+
+			for (int i = 0; i < this.distinct.length; i++) {
+				final Biome biome = this.distinct[i];
+				final int[] sum = this.sums[i];
+				for (int z = 0; z < 16; z++)
+					for (int x = 0; x < 16; x++) {
+						final int hit = this.biomes[z << 4 | x] == biome ? 1 : 0;
+						sum[(z + 1) * 17 + x + 1] = hit + sum[z * 17 + x + 1] + sum[(z + 1) * 17 + x]
+								- sum[z * 17 + x];
+					}
+			}
+		}
+
+		/*
+		 * Number of columns of the distinct biome in the inclusive chunk
+		 * relative rectangle.
+		 */
+		public int count(final int biome, final int x0, final int z0, final int x1, final int z1) {
+			final int[] sum = this.sums[biome];
+			return sum[(z1 + 1) * 17 + x1 + 1] - sum[z0 * 17 + x1 + 1] - sum[(z1 + 1) * 17 + x0]
+					+ sum[z0 * 17 + x0];
+		}
+	}
+
+	private static Entry get(final World world, final int chunkX, final int chunkZ) {
+		if (world != cacheWorld) {
+			cache.clear();
+			cacheWorld = world;
+		}
+
+		final long key = ChunkPos.chunkXZ2Int(chunkX, chunkZ);
+		Entry entry = cache.get(key);
+		if (entry == null) {
+			final Chunk chunk = world.getChunkProvider().getLoadedChunk(chunkX, chunkZ);
+			if (chunk == null || chunk.isEmpty())
+				return null;
+			entry = new Entry(world, chunk);
+			cache.put(key, entry);
+		}
+		return entry;
+	}
+
+	/*
+	 * Returns the biome for the column. Falls back to the world if the
+	 * chunk is not loaded.
+	 */
+	public static Biome getBiome(final World world, final int x, final int z) {
+		final Entry entry = get(world, x >> 4, z >> 4);
+		if (entry != null)
+			return entry.biomes[(z & 15) << 4 | (x & 15)];
+		pos.setPos(x, 0, z);
+		return world.getBiome(pos);
+	}
+
+	/*
+	 * Accumulates the biome counts for the columns in the inclusive area
+	 * into the provided map. Loaded chunks are counted with their prefix
+	 * sums so the cost per chunk is the number of distinct biomes within;
+	 * chunks that are not loaded are walked column by column. Returns the
+	 * number of columns surveyed.
+	 */
+	public static int survey(final World world, final int minX, final int minZ, final int maxX, final int maxZ,
+			final TObjectIntHashMap<Biome> weights) {
+		return survey(world, minX, minZ, maxX, maxZ, weights, 1);
+	}
+
+	/*
+	 * Same as above, but each column counts multiplier times toward the
+	 * biome weights.
+	 */
+	public static int survey(final World world, final int minX, final int minZ, final int maxX, final int maxZ,
+			final TObjectIntHashMap<Biome> weights, final int multiplier) {
+		for (int cX = minX >> 4; cX <= maxX >> 4; cX++) {
+			final int x0 = Math.max(minX, cX << 4);
+			final int x1 = Math.min(maxX, (cX << 4) + 15);
+			for (int cZ = minZ >> 4; cZ <= maxZ >> 4; cZ++) {
+				final int z0 = Math.max(minZ, cZ << 4);
+				final int z1 = Math.min(maxZ, (cZ << 4) + 15);
+				final Entry entry = get(world, cX, cZ);
+
+				if (entry != null) {
+					for (int i = 0; i < entry.distinct.length; i++) {
+						final int count = entry.count(i, x0 & 15, z0 & 15, x1 & 15, z1 & 15) * multiplier;
+						if (count > 0)
+							weights.adjustOrPutValue(entry.distinct[i], count, count);
+					}
+				} else {
+					for (int x = x0; x <= x1; x++)
+						for (int z = z0; z <= z1; z++) {
+							pos.setPos(x, 0, z);
+							weights.adjustOrPutValue(world.getBiome(pos), multiplier, multiplier);
+						}
+				}
+			}
+		}
+		return (maxX - minX + 1) * (maxZ - minZ + 1);
+	}
+
+	@SubscribeEvent
+	public void chunkLoad(final ChunkEvent.Load event) {
+		if (event.getWorld().isRemote && event.getWorld() == cacheWorld)
+			cache.remove(ChunkPos.chunkXZ2Int(event.getChunk().xPosition, event.getChunk().zPosition));
+	}
+
+	@SubscribeEvent
+	public void chunkUnload(final ChunkEvent.Unload event) {
+		if (event.getWorld().isRemote && event.getWorld() == cacheWorld)
+			cache.remove(ChunkPos.chunkXZ2Int(event.getChunk().xPosition, event.getChunk().zPosition));
+	}
+
+	@SubscribeEvent
+	public void worldUnload(final WorldEvent.Unload event) {
+		if (event.getWorld().isRemote && event.getWorld() == cacheWorld) {
+			cache.clear();
+			cacheWorld = null;
+		}
+	}
+}
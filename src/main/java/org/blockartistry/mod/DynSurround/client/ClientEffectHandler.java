@@ -24,13 +24,23 @@
 
 package org.blockartistry.mod.DynSurround.client;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.blockartistry.mod.DynSurround.ModOptions;
 import org.blockartistry.mod.DynSurround.client.footsteps.Footsteps;
 import org.blockartistry.mod.DynSurround.client.fx.BlockEffectHandler;
+import org.blockartistry.mod.DynSurround.client.fx.BlockEffectIndex;
+import org.blockartistry.mod.DynSurround.client.fx.particle.ParticlePool;
+import org.blockartistry.mod.DynSurround.client.replay.ReplayRecorder;
 import org.blockartistry.mod.DynSurround.data.DimensionRegistry;
+import org.blockartistry.mod.DynSurround.event.DiagnosticEvent;
+import org.blockartistry.mod.DynSurround.network.Network;
+import org.blockartistry.mod.DynSurround.util.TimingHistogram;
 import org.blockartistry.mod.DynSurround.util.WorldUtils;
 import org.blockartistry.mod.DynSurround.world.WorldProviderCloudColorHandle;
 
@@ -52,10 +62,53 @@ import net.minecraftforge.fml.relauncher.SideOnly;
 @SideOnly(Side.CLIENT)
 public class ClientEffectHandler {
 
-	private static final List<IClientEffectHandler> effectHandlers = new ArrayList<IClientEffectHandler>();
+	/*
+	 * Scheduling state for a registered handler. A handler runs on ticks
+	 * where (tick + phase) % interval == 0. Non-critical handlers that come
+	 * due after the tick budget has been spent are deferred to the next
+	 * tick, where they run in their normal registration order regardless of
+	 * budget. Keeping the order means a deferred handler still runs after
+	 * the handlers it depends on, such as EnvironStateHandler.
+	 */
+	private static final class Scheduled {
+		public final IClientEffectHandler handler;
+		public final String name;
+		public final int interval;
+		public final int phase;
+		public final boolean critical;
+
+		public boolean deferred;
+		public long lastNanos;
+		public int deferrals;
+		public final TimingHistogram timing = new TimingHistogram();
+
+		public Scheduled(final IClientEffectHandler handler, final int interval, final int phase,
+				final boolean critical) {
+			this.handler = handler;
+			this.name = handler.getClass().getSimpleName();
+			this.interval = Math.max(interval, 1);
+			this.phase = phase;
+			this.critical = critical;
+		}
+
+		public boolean isDue(final int tick) {
+			return this.deferred || (tick + this.phase) % this.interval == 0;
+		}
+	}
+
+	private static final List<Scheduled> effectHandlers = new ArrayList<Scheduled>();
+
+	private static int tickCount = 0;
+	private static long lastTickNanos = 0;
+	private static int lastTickDeferred = 0;
 
 	public static void register(final IClientEffectHandler handler) {
-		effectHandlers.add(handler);
+		register(handler, 1, 0, true);
+	}
+
+	public static void register(final IClientEffectHandler handler, final int interval, final int phase,
+			final boolean critical) {
+		effectHandlers.add(new Scheduled(handler, interval, phase, critical));
 		if (handler.hasEvents()) {
 			MinecraftForge.EVENT_BUS.register(handler);
 		}
@@ -67,11 +120,16 @@ public class ClientEffectHandler {
 	public static void initialize() {
 		final ClientEffectHandler handler = new ClientEffectHandler();
 		MinecraftForge.EVENT_BUS.register(handler);
+		MinecraftForge.EVENT_BUS.register(new ChunkBiomeCache());
+		MinecraftForge.EVENT_BUS.register(new BlockEffectIndex());
+		MinecraftForge.EVENT_BUS.register(new ReplayRecorder());
 
+		// Survey and fog are staggered so they do not land on the same
+		// tick; fog picks up the survey from the tick before.
 		register(new EnvironStateHandler());
-		register(new BiomeSurveyHandler());
-		register(new FogEffectHandler());
-		register(new BlockEffectHandler());
+		register(new BiomeSurveyHandler(), 2, 0, false);
+		register(new FogEffectHandler(), 2, 1, false);
+		register(new BlockEffectHandler(), 1, 0, false);
 
 		if (ModOptions.blockedSounds.length > 0 || ModOptions.culledSounds.length > 0)
 			register(new SoundControlHandler());
@@ -80,7 +138,7 @@ public class ClientEffectHandler {
 			register(new Footsteps());
 
 		if (ModOptions.auroraEnable)
-			register(new AuroraEffectHandler());
+			register(new AuroraEffectHandler(), 1, 0, false);
 
 		if (ModOptions.enableBiomeSounds)
 			register(new PlayerSoundEffectHandler());
@@ -99,10 +157,94 @@ public class ClientEffectHandler {
 			return;
 
 		if (event.phase == Phase.START) {
+			// Same conditions under which the ParticleManager ticks
+			ParticlePool.tick();
+
 			final EntityPlayer player = FMLClientHandler.instance().getClient().thePlayer;
-			for (final IClientEffectHandler handler : effectHandlers)
-				handler.process(world, player);
+			final long budget = ModOptions.clientTickBudget * 1000L;
+			final long start = System.nanoTime();
+			final int tick = tickCount++;
+			int deferred = 0;
+
+			for (final Scheduled entry : effectHandlers) {
+				if (!entry.isDue(tick))
+					continue;
+
+				final long begin = System.nanoTime();
+				if (!entry.critical && !entry.deferred && budget > 0 && begin - start >= budget) {
+					entry.deferred = true;
+					entry.deferrals++;
+					deferred++;
+					continue;
+				}
+
+				entry.deferred = false;
+				entry.handler.process(world, player);
+				entry.lastNanos = System.nanoTime() - begin;
+				if (ModOptions.enableHandlerTiming)
+					entry.timing.record(entry.lastNanos);
+			}
+
+			lastTickNanos = System.nanoTime() - start;
+			lastTickDeferred = deferred;
+
+			if (ReplayRecorder.isRecording())
+				ReplayRecorder.tick(world, player);
+		}
+	}
+
+	@SubscribeEvent
+	public void diagnostics(final DiagnosticEvent.Gather event) {
+		final StringBuilder builder = new StringBuilder();
+		builder.append(String.format("Tick: %.3fms", lastTickNanos / 1000000.0D));
+		if (ModOptions.clientTickBudget > 0)
+			builder.append(String.format(" / %.3fms budget", ModOptions.clientTickBudget / 1000.0D));
+		builder.append("; deferred ").append(lastTickDeferred);
+		event.output.add(builder.toString());
+
+		for (final Scheduled entry : effectHandlers) {
+			if (entry.critical && entry.interval == 1)
+				continue;
+			event.output.add(String.format("  %s: every %d+%d %.3fms deferrals %d%s", entry.name, entry.interval,
+					entry.phase, entry.lastNanos / 1000000.0D, entry.deferrals, entry.deferred ? " (pending)" : ""));
+		}
+
+		if (ModOptions.enableHandlerTiming) {
+			for (final Scheduled entry : effectHandlers) {
+				final TimingHistogram timing = entry.timing;
+				event.output.add(String.format("  %s: p50 %.3fms p99 %.3fms max %.3fms (%d)", entry.name,
+						timing.getValueAtPercentile(50) / 1000000.0D, timing.getValueAtPercentile(99) / 1000000.0D,
+						timing.getMax() / 1000000.0D, timing.getCount()));
+			}
+		}
+	}
+
+	/*
+	 * Writes the handler timing histograms to a CSV file. Values are in
+	 * nanoseconds. Returns the file written.
+	 */
+	public static File dumpTimings(final File directory) throws IOException {
+		final File file = new File(directory, "handler_timings.csv");
+		final PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			writer.println("handler,interval,phase,critical,count,mean,p50,p90,p99,p999,max,deferrals");
+			for (final Scheduled entry : effectHandlers) {
+				final TimingHistogram timing = entry.timing;
+				writer.println(String.format("%s,%d,%d,%b,%d,%.0f,%d,%d,%d,%d,%d,%d", entry.name, entry.interval,
+						entry.phase, entry.critical, timing.getCount(), timing.getMean(),
+						timing.getValueAtPercentile(50), timing.getValueAtPercentile(90),
+						timing.getValueAtPercentile(99), timing.getValueAtPercentile(99.9), timing.getMax(),
+						entry.deferrals));
+			}
+		} finally {
+			writer.close();
 		}
+		return file;
+	}
+
+	public static void resetTimings() {
+		for (final Scheduled entry : effectHandlers)
+			entry.timing.reset();
 	}
 	
 	@SubscribeEvent(priority = EventPriority.LOWEST)
@@ -127,6 +269,9 @@ public class ClientEffectHandler {
 		// latest info.
 		DimensionRegistry.loading(world);
 
+		// Let the server know what this client wants
+		Network.sendClientCapabilities();
+
 		// Shim the provider so we can tap into the
 		// sky and cloud stuff.
 		if (ModOptions.enableFancyCloudHandling && WorldUtils.isDimensionHasSky(world.provider)) {
@@ -24,7 +24,9 @@
 
 package org.blockartistry.mod.DynSurround.client;
 
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 import org.blockartistry.mod.DynSurround.ModOptions;
 import org.blockartistry.mod.DynSurround.client.EnvironStateHandler.EnvironState;
@@ -33,12 +35,14 @@ import org.blockartistry.mod.DynSurround.client.fx.particle.ParticleDamagePopOff
 import org.blockartistry.mod.DynSurround.client.fx.particle.ParticleHealPopOff;
 import org.blockartistry.mod.DynSurround.network.Network;
 
+import gnu.trove.map.hash.TIntObjectHashMap;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.particle.Particle;
 import net.minecraft.client.particle.ParticleManager;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.entity.projectile.EntityArrow;
 import net.minecraft.init.MobEffects;
 import net.minecraft.potion.Potion;
@@ -46,11 +50,14 @@ import net.minecraft.util.EntityDamageSource;
 import net.minecraft.util.EntityDamageSourceIndirect;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.entity.living.LivingHealEvent;
 import net.minecraftforge.event.entity.living.LivingHurtEvent;
 import net.minecraftforge.fml.common.eventhandler.EventPriority;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
@@ -58,8 +65,28 @@ public final class DamageEffectHandler {
 
 	private static final double DISTANCE_THRESHOLD_SQ = 32 * 32;
 
+	/*
+	 * Hurt and heal events are gathered per entity during a server tick and
+	 * flushed at the end of the tick. Amounts are summed and the critical
+	 * flag is OR'd so a grinder producing many events for the same mob
+	 * results in a single popoff. Each player is sent the popoffs for
+	 * entities it is tracking within range.
+	 */
+	private static final class Pending {
+		public final Entity entity;
+		public int damage;
+		public int heal;
+		public boolean isCritical;
+
+		public Pending(final Entity entity) {
+			this.entity = entity;
+		}
+	}
+
+	private final TIntObjectHashMap<Pending> pending = new TIntObjectHashMap<Pending>();
+
 	public static class HealthData {
-		public final UUID entityId;
+		public final int entityId;
 		public final float posX;
 		public final float posY;
 		public final float posZ;
@@ -67,7 +94,7 @@ public final class DamageEffectHandler {
 		public final int amount;
 
 		public HealthData(final Entity entity, final boolean isCritical, final int amount) {
-			this.entityId = entity.getUniqueID();
+			this.entityId = entity.getEntityId();
 			this.posX = (float) entity.posX;
 			this.posY = (float) entity.posY + entity.height;
 			this.posZ = (float) entity.posZ;
@@ -75,7 +102,7 @@ public final class DamageEffectHandler {
 			this.amount = amount;
 		}
 
-		public HealthData(final UUID id, final float x, final float y, final float z, final boolean isCritical,
+		public HealthData(final int id, final float x, final float y, final float z, final boolean isCritical,
 				final int amount) {
 			this.entityId = id;
 			this.posX = x;
@@ -126,8 +153,9 @@ public final class DamageEffectHandler {
 			}
 		}
 
-		final HealthData data = new HealthData(event.getEntityLiving(), isCrit, (int) event.getAmount());
-		Network.sendHealthUpdate(data, event.getEntity().worldObj.provider.getDimension());
+		final Pending p = getPending(event.getEntityLiving());
+		p.damage += (int) event.getAmount();
+		p.isCritical |= isCrit;
 	}
 
 	@SubscribeEvent(priority = EventPriority.LOW)
@@ -140,8 +168,63 @@ public final class DamageEffectHandler {
 				|| event.getEntityLiving().getHealth() == event.getEntityLiving().getMaxHealth())
 			return;
 
-		final HealthData data = new HealthData(event.getEntityLiving(), false, -(int) event.getAmount());
-		Network.sendHealthUpdate(data, event.getEntity().worldObj.provider.getDimension());
+		getPending(event.getEntityLiving()).heal += (int) event.getAmount();
+	}
+
+	private Pending getPending(final Entity entity) {
+		Pending p = this.pending.get(entity.getEntityId());
+		if (p == null) {
+			p = new Pending(entity);
+			this.pending.put(entity.getEntityId(), p);
+		}
+		return p;
+	}
+
+	@SubscribeEvent
+	public void tickEvent(final TickEvent.ServerTickEvent event) {
+		if (event.phase != Phase.END || this.pending.isEmpty())
+			return;
+
+		for (final Pending p : this.pending.valueCollection()) {
+			if (p.damage == 0 && p.heal == 0 && !p.isCritical)
+				continue;
+
+			final HealthData damage = p.damage > 0 || p.isCritical
+					? new HealthData(p.entity, p.isCritical, p.damage) : null;
+			final HealthData heal = p.heal > 0 ? new HealthData(p.entity, false, -p.heal) : null;
+
+			for (final EntityPlayerMP player : getRecipients(p.entity)) {
+				if (damage != null)
+					Network.sendHealthUpdate(player, damage);
+				if (heal != null)
+					Network.sendHealthUpdate(player, heal);
+			}
+		}
+
+		this.pending.clear();
+	}
+
+	/*
+	 * Players tracking the entity are the ones whose client knows about it.
+	 * An entity that died this tick may already have been dropped by the
+	 * tracker so fall back to a scan of the players in the world.
+	 */
+	private static List<EntityPlayerMP> getRecipients(final Entity entity) {
+		final List<EntityPlayerMP> result = new ArrayList<EntityPlayerMP>();
+		if (!(entity.worldObj instanceof WorldServer))
+			return result;
+
+		final Set<? extends EntityPlayer> tracking = ((WorldServer) entity.worldObj).getEntityTracker()
+				.getTrackingPlayers(entity);
+		final List<? extends EntityPlayer> candidates = tracking.isEmpty() ? entity.worldObj.playerEntities
+				: new ArrayList<EntityPlayer>(tracking);
+
+		for (final EntityPlayer player : candidates)
+			if (player != entity && player instanceof EntityPlayerMP
+					&& Network.hasFeature(player, Network.FEATURE_POPOFFS)
+					&& player.getDistanceSqToEntity(entity) < DISTANCE_THRESHOLD_SQ)
+				result.add((EntityPlayerMP) player);
+		return result;
 	}
 
 	@SideOnly(Side.CLIENT)
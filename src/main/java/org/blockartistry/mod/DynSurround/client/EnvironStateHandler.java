@@ -34,6 +34,7 @@ import org.blockartistry.mod.DynSurround.client.sound.SoundEffect;
 import org.blockartistry.mod.DynSurround.client.sound.SoundManager;
 import org.blockartistry.mod.DynSurround.client.storm.StormProperties;
 import org.blockartistry.mod.DynSurround.data.BiomeRegistry;
+import org.blockartistry.mod.DynSurround.data.ConditionTokens;
 import org.blockartistry.mod.DynSurround.data.DimensionRegistry;
 import org.blockartistry.mod.DynSurround.event.DiagnosticEvent;
 import org.blockartistry.mod.DynSurround.util.PlayerUtils;
@@ -114,6 +115,8 @@ public class EnvironStateHandler implements IClientEffectHandler {
 		// State that is gathered from the various sources
 		// to avoid requery. Used during the tick.
 		private static String conditions = "";
+		private static long conditionMask;
+		private static final ConditionTokens.Builder conditionBuilder = new ConditionTokens.Builder();
 		private static String biomeName = "";
 		private static Biome playerBiome = null;
 		private static int dimensionId;
@@ -148,42 +151,39 @@ public class EnvironStateHandler implements IClientEffectHandler {
 		private static final String CONDITION_TOKEN_HUMID = "humid";
 		private static final String CONDITION_TOKEN_DRY = "dry";
 		private static final String CONDITION_TOKEN_INSIDE = "inside";
-		private static final char CONDITION_SEPARATOR = '#';
 
-		private static String getPlayerConditions(final EntityPlayer player) {
-			final StringBuilder builder = new StringBuilder();
+		private static void appendPlayerConditions(final EntityPlayer player, final ConditionTokens.Builder builder) {
 			if (isPlayerHurt())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_HURT);
+				builder.append(CONDITION_TOKEN_HURT);
 			if (isPlayerHungry())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_HUNGRY);
+				builder.append(CONDITION_TOKEN_HUNGRY);
 			if (isPlayerBurning())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_BURNING);
+				builder.append(CONDITION_TOKEN_BURNING);
 			if (isPlayerSuffocating())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_NOAIR);
+				builder.append(CONDITION_TOKEN_NOAIR);
 			if (isPlayerFlying())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_FLYING);
+				builder.append(CONDITION_TOKEN_FLYING);
 			if (isPlayerSprinting())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_SPRINTING);
+				builder.append(CONDITION_TOKEN_SPRINTING);
 			if (isPlayerInLava())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_INLAVA);
+				builder.append(CONDITION_TOKEN_INLAVA);
 			if (isPlayerInvisible())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_INVISIBLE);
+				builder.append(CONDITION_TOKEN_INVISIBLE);
 			if (isPlayerBlind())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_BLIND);
+				builder.append(CONDITION_TOKEN_BLIND);
 			if (isPlayerInWater())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_INWATER);
+				builder.append(CONDITION_TOKEN_INWATER);
 			if (isFreezing())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_FREEZING);
+				builder.append(CONDITION_TOKEN_FREEZING);
 			if (isFoggy())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_FOG);
+				builder.append(CONDITION_TOKEN_FOG);
 			if (isHumid())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_HUMID);
+				builder.append(CONDITION_TOKEN_HUMID);
 			if (isDry())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_DRY);
+				builder.append(CONDITION_TOKEN_DRY);
 			if (isPlayerInside())
-				builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_INSIDE);
+				builder.append(CONDITION_TOKEN_INSIDE);
 			if (isPlayerRiding()) {
-				builder.append(CONDITION_SEPARATOR);
 				if (player.getRidingEntity() instanceof EntityMinecart)
 					builder.append(CONDITION_TOKEN_MINECART);
 				else if (player.getRidingEntity() instanceof EntityHorse)
@@ -195,14 +195,16 @@ public class EnvironStateHandler implements IClientEffectHandler {
 				else
 					builder.append(CONDITION_TOKEN_RIDING);
 			}
-			builder.append(CONDITION_SEPARATOR).append(temperatureCategory);
-			builder.append(CONDITION_SEPARATOR);
-			return builder.toString();
+			builder.append(temperatureCategory);
+			builder.terminate();
 		}
 
 		private static void tick(final World world, final EntityPlayer player) {
 			EnvironState.player = player;
-			EnvironState.conditions = DimensionRegistry.getConditions(world) + getPlayerConditions(player);
+			DimensionRegistry.appendConditions(world, conditionBuilder.reset());
+			appendPlayerConditions(player, conditionBuilder);
+			EnvironState.conditions = conditionBuilder.toString();
+			EnvironState.conditionMask = conditionBuilder.getMask();
 			EnvironState.playerBiome = PlayerUtils.getPlayerBiome(player, false);
 			EnvironState.biomeName = BiomeRegistry.resolveName(EnvironState.playerBiome);
 			EnvironState.dimensionId = world.provider.getDimension();
@@ -217,14 +219,27 @@ public class EnvironStateHandler implements IClientEffectHandler {
 			EnvironState.humid = trueBiome.isHighHumidity();
 			EnvironState.dry = trueBiome.getRainfall() == 0;
 
-			if (!Minecraft.getMinecraft().isGamePaused())
+			if (!isGamePaused())
 				EnvironState.tickCounter++;
 		}
 
+		/*
+		 * There is no Minecraft instance when the handlers are driven by
+		 * the headless replay runner.
+		 */
+		public static boolean isGamePaused() {
+			final Minecraft mc = Minecraft.getMinecraft();
+			return mc != null && mc.isGamePaused();
+		}
+
 		public static String getConditions() {
 			return conditions;
 		}
 
+		public static long getConditionMask() {
+			return conditionMask;
+		}
+
 		public static Biome getPlayerBiome() {
 			return playerBiome;
 		}
@@ -259,6 +274,10 @@ public class EnvironStateHandler implements IClientEffectHandler {
 			return getPlayer().getUniqueID().equals(id);
 		}
 
+		public static boolean isPlayer(final int entityId) {
+			return getPlayer().getEntityId() == entityId;
+		}
+
 		public static boolean isCreative() {
 			return getPlayer().capabilities.isCreativeMode;
 		}
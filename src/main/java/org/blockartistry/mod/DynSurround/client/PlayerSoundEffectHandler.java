@@ -65,31 +65,56 @@ public class PlayerSoundEffectHandler implements IClientEffectHandler {
 		return EnvironState.isPlayerUnderground() || !EnvironState.isPlayerInside();
 	}
 
-	private static List<SoundEffect> getBiomeSounds(final String conditions) {
+	// Scaled biome sounds for the last conditions and survey, plus
+	// scratch collections reused from tick to tick.
+	private static final List<SoundEffect> biomeSounds = new ArrayList<SoundEffect>();
+	private static final TObjectIntHashMap<SoundEffect> biomeWeights = new TObjectIntHashMap<SoundEffect>();
+	private static final List<SoundEffect> ambient = new ArrayList<SoundEffect>();
+	private static long biomeSoundsMask = 0;
+	private static String biomeSoundsConditions = null;
+	private static int biomeSoundsVersion = -1;
+
+	private static List<SoundEffect> getBiomeSounds(final String conditions, final long conditionMask) {
+		if (biomeSoundsVersion == BiomeSurveyHandler.getVersion() && biomeSoundsMask == conditionMask
+				&& conditions.equals(biomeSoundsConditions))
+			return biomeSounds;
+
 		// Need to collect sounds from all the applicable biomes
 		// along with their weights.
-		final TObjectIntHashMap<SoundEffect> sounds = new TObjectIntHashMap<SoundEffect>();
+		biomeWeights.clear();
 		final TObjectIntHashMap<Biome> weights = BiomeSurveyHandler.getBiomes();
 		for (final Biome biome : weights.keySet()) {
-			final List<SoundEffect> bs = BiomeRegistry.getSounds(biome, conditions);
+			final List<SoundEffect> bs = BiomeRegistry.getSounds(biome, conditions, conditionMask);
 			for (final SoundEffect sound : bs)
-				sounds.put(sound, sounds.get(sound) + weights.get(biome));
+				biomeWeights.adjustOrPutValue(sound, weights.get(biome), weights.get(biome));
 		}
 
 		// Scale the volumes in the resulting list based on the weights
-		final List<SoundEffect> result = new ArrayList<SoundEffect>();
+		biomeSounds.clear();
 		final int area = BiomeSurveyHandler.getArea();
-		for (final SoundEffect sound : sounds.keySet()) {
-			final float scale = 0.3F + 0.7F * ((float) sounds.get(sound) / (float) area);
-			result.add(SoundEffect.scaleVolume(sound, scale));
+		for (final SoundEffect sound : biomeWeights.keySet()) {
+			final float scale = 0.3F + 0.7F * ((float) biomeWeights.get(sound) / (float) area);
+			biomeSounds.add(SoundEffect.scaleVolume(sound, scale));
 		}
 
-		return result;
+		biomeSoundsMask = conditionMask;
+		biomeSoundsConditions = conditions;
+		biomeSoundsVersion = BiomeSurveyHandler.getVersion();
+		return biomeSounds;
+	}
+
+	/*
+	 * ArrayList.addAll() copies the source into a temporary array.
+	 */
+	private static void addAll(final List<SoundEffect> dest, final List<SoundEffect> src) {
+		for (int i = 0; i < src.size(); i++)
+			dest.add(src.get(i));
 	}
 
 	private static void resetSounds() {
 		SoundManager.clearSounds();
 		drops.clear();
+		biomeSoundsVersion = -1;
 	}
 
 	@Override
@@ -102,21 +127,24 @@ public class PlayerSoundEffectHandler implements IClientEffectHandler {
 
 		final Biome playerBiome = EnvironState.getPlayerBiome();
 		final String conditions = EnvironState.getConditions();
+		final long conditionMask = EnvironState.getConditionMask();
 
-		final List<SoundEffect> sounds = new ArrayList<SoundEffect>();
+		// The sound manager consumes the list it is handed so the working
+		// list is refilled every tick.
+		ambient.clear();
 		if (doBiomeSounds())
-			sounds.addAll(getBiomeSounds(conditions));
-		sounds.addAll(BiomeRegistry.getSounds(BiomeRegistry.PLAYER, conditions));
+			addAll(ambient, getBiomeSounds(conditions, conditionMask));
+		addAll(ambient, BiomeRegistry.getSounds(BiomeRegistry.PLAYER, conditions, conditionMask));
 
-		SoundManager.queueAmbientSounds(sounds);
+		SoundManager.queueAmbientSounds(ambient);
 
 		if (doBiomeSounds()) {
-			SoundEffect sound = BiomeRegistry.getSpotSound(playerBiome, conditions, EnvironState.RANDOM);
+			SoundEffect sound = BiomeRegistry.getSpotSound(playerBiome, conditions, conditionMask, EnvironState.RANDOM);
 			if (sound != null)
 				SoundManager.playSoundAtPlayer(player, sound, SoundCategory.AMBIENT);
 		}
 
-		SoundEffect sound = BiomeRegistry.getSpotSound(BiomeRegistry.PLAYER, conditions, EnvironState.RANDOM);
+		SoundEffect sound = BiomeRegistry.getSpotSound(BiomeRegistry.PLAYER, conditions, conditionMask, EnvironState.RANDOM);
 		if (sound != null)
 			SoundManager.playSoundAtPlayer(player, sound, SoundCategory.AMBIENT);
 
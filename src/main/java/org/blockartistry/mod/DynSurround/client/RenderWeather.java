@@ -75,7 +75,8 @@ public final class RenderWeather extends IRenderHandler {
 	 */
 	@Override
 	public void render(float partialTicks, WorldClient world, Minecraft mc) {
-		for (final IAtmosRenderer renderer : renderList)
-			renderer.render(partialTicks, world, mc, this.parent);
+		// Indexed to avoid an iterator every frame
+		for (int i = 0; i < renderList.size(); i++)
+			renderList.get(i).render(partialTicks, world, mc, this.parent);
 	}
 }
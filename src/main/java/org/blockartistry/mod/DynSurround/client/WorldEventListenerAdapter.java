@@ -0,0 +1,92 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.SoundCategory;
+import net.minecraft.util.SoundEvent;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IWorldEventListener;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * No-op IWorldEventListener so that listeners only need to override the
+ * notifications they care about.
+ */
+@SideOnly(Side.CLIENT)
+public abstract class WorldEventListenerAdapter implements IWorldEventListener {
+
+	@Override
+	public void notifyBlockUpdate(final World world, final BlockPos pos, final IBlockState oldState,
+			final IBlockState newState, final int flags) {
+	}
+
+	@Override
+	public void notifyLightSet(final BlockPos pos) {
+	}
+
+	@Override
+	public void markBlockRangeForRenderUpdate(final int x1, final int y1, final int z1, final int x2, final int y2,
+			final int z2) {
+	}
+
+	@Override
+	public void playSoundToAllNearPlayers(final EntityPlayer player, final SoundEvent sound,
+			final SoundCategory category, final double x, final double y, final double z, final float volume,
+			final float pitch) {
+	}
+
+	@Override
+	public void playRecord(final SoundEvent sound, final BlockPos pos) {
+	}
+
+	@Override
+	public void spawnParticle(final int particleID, final boolean ignoreRange, final double x, final double y,
+			final double z, final double xSpeed, final double ySpeed, final double zSpeed, final int... parameters) {
+	}
+
+	@Override
+	public void onEntityAdded(final Entity entity) {
+	}
+
+	@Override
+	public void onEntityRemoved(final Entity entity) {
+	}
+
+	@Override
+	public void broadcastSound(final int soundID, final BlockPos pos, final int data) {
+	}
+
+	@Override
+	public void playEvent(final EntityPlayer player, final int type, final BlockPos pos, final int data) {
+	}
+
+	@Override
+	public void sendBlockBreakProgress(final int breakerId, final BlockPos pos, final int progress) {
+	}
+}
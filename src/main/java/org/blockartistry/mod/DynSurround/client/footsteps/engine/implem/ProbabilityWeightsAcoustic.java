@@ -31,6 +31,7 @@ import org.blockartistry.mod.DynSurround.client.footsteps.engine.interfaces.IAco
 import org.blockartistry.mod.DynSurround.client.footsteps.engine.interfaces.EventType;
 import org.blockartistry.mod.DynSurround.client.footsteps.engine.interfaces.IOptions;
 import org.blockartistry.mod.DynSurround.client.footsteps.engine.interfaces.ISoundPlayer;
+import org.blockartistry.mod.DynSurround.util.AliasTable;
 
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -40,6 +41,7 @@ public class ProbabilityWeightsAcoustic implements IAcoustic {
 	protected final List<IAcoustic> acoustics;
 	protected final int[] weights;
 	protected final int totalWeight;
+	protected final AliasTable<IAcoustic> table;
 
 	public ProbabilityWeightsAcoustic(final List<IAcoustic> acoustics, final List<Integer> weights) {
 		this.acoustics = new ArrayList<IAcoustic>(acoustics);
@@ -52,20 +54,15 @@ public class ProbabilityWeightsAcoustic implements IAcoustic {
 		}
 
 		this.totalWeight = tWeight;
+		this.table = tWeight > 0 ? new AliasTable<IAcoustic>(this.acoustics, this.weights) : null;
 	}
 
 	@Override
 	public void playSound(final ISoundPlayer player, final Object location, final EventType event,
 			final IOptions inputOptions) {
-		if (this.totalWeight <= 0)
+		if (this.table == null)
 			return;
 
-		int targetWeight = player.getRNG().nextInt(this.totalWeight);
-
-		int i = 0;
-		for (i = this.weights.length; (targetWeight -= this.weights[i - 1]) >= 0; i--)
-			;
-
-		this.acoustics.get(i - 1).playSound(player, location, event, inputOptions);
+		this.table.next(player.getRNG()).playSound(player, location, event, inputOptions);
 	}
 }
@@ -24,7 +24,6 @@
 
 package org.blockartistry.mod.DynSurround.client.fx;
 
-import java.util.List;
 import java.util.Random;
 
 import org.blockartistry.mod.DynSurround.ModOptions;
@@ -35,9 +34,7 @@ import org.blockartistry.mod.DynSurround.compat.MCHelper;
 import org.blockartistry.mod.DynSurround.data.BlockRegistry;
 import org.blockartistry.mod.DynSurround.util.XorShiftRandom;
 
-import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
-import net.minecraft.client.Minecraft;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.util.SoundCategory;
 import net.minecraft.util.math.BlockPos;
@@ -54,41 +51,62 @@ public class BlockEffectHandler implements IClientEffectHandler {
 	private static final Random random = new XorShiftRandom();
 	private static final double RATIO = 0.0335671847202175D;
 
+	private static void processBlock(final World world, final BlockPos pos, final String conditions,
+			final long conditionMask) {
+		final IBlockState state = world.getBlockState(pos);
+		if (MCHelper.isAirBlock(state, world, pos))
+			return;
+
+		for (final BlockEffect effect : BlockRegistry.getEffects(state))
+			if (effect.trigger(state, world, pos, random))
+				effect.doEffect(state, world, pos, random);
+
+		final SoundEffect sound = BlockRegistry.getSound(state, random, conditions, conditionMask);
+		if (sound != null)
+			sound.doEffect(state, world, pos, SoundCategory.BLOCKS, random);
+	}
+
+	// Reused for each probe that hits an indexed block
+	private static final BlockPos.MutableBlockPos probe = new BlockPos.MutableBlockPos();
+
+	/*
+	 * Probes CHECK_COUNT random positions around the player, each axis
+	 * offset being the difference of two nextInt(RANGE) calls, same as
+	 * before the index. The index only decides whether a probe is worth a
+	 * block lookup, so every block keeps its chance of being hit and the
+	 * work per tick is bounded by CHECK_COUNT however dense the terrain.
+	 */
 	@Override
 	public void process(final World world, final EntityPlayer player) {
-		if (Minecraft.getMinecraft().isGamePaused())
+		if (EnvironState.isGamePaused())
 			return;
 
 		final BlockPos playerPos = new BlockPos(player);
 		final String conditions = EnvironState.getConditions();
+		final long conditionMask = EnvironState.getConditionMask();
 		final int RANGE = ModOptions.specialEffectRange;
 		final int CHECK_COUNT = (int) (Math.pow(RANGE * 2 - 1, 3) * RATIO);
 
+		final int pX = playerPos.getX();
+		final int pY = playerPos.getY();
+		final int pZ = playerPos.getZ();
+
+		BlockEffectIndex.resetScanBudget();
 		for (int i = 0; i < CHECK_COUNT; i++) {
-			final BlockPos pos = playerPos.add(random.nextInt(RANGE) - random.nextInt(RANGE),
-					random.nextInt(RANGE) - random.nextInt(RANGE), random.nextInt(RANGE) - random.nextInt(RANGE));
-			final IBlockState state = world.getBlockState(pos);
-			final Block block = MCHelper.getBlock(world, pos);
-			if (!MCHelper.isAirBlock(state, world, pos)) {
-				final List<BlockEffect> chain = BlockRegistry.getEffects(block);
-				if (chain != null) {
-					for (final BlockEffect effect : chain)
-						if (effect.trigger(state, world, pos, random))
-							effect.doEffect(state, world, pos, random);
-				}
-
-				final SoundEffect sound = BlockRegistry.getSound(block, random, conditions);
-				if (sound != null)
-					sound.doEffect(state, world, pos, SoundCategory.BLOCKS, random);
+			final int x = pX + random.nextInt(RANGE) - random.nextInt(RANGE);
+			final int y = pY + random.nextInt(RANGE) - random.nextInt(RANGE);
+			final int z = pZ + random.nextInt(RANGE) - random.nextInt(RANGE);
+			if (BlockEffectIndex.isCandidate(world, x, y, z)) {
+				probe.setPos(x, y, z);
+				processBlock(world, probe, conditions, conditionMask);
 			}
 		}
 
 		if (EnvironState.isPlayerOnGround() && EnvironState.isPlayerMoving()) {
 			final BlockPos pos = playerPos.down(1);
 			final IBlockState state = world.getBlockState(pos);
-			final Block block = MCHelper.getBlock(world, pos);
 			if (!MCHelper.isAirBlock(state, world, pos) && !state.getMaterial().isLiquid()) {
-				final SoundEffect sound = BlockRegistry.getStepSound(block, random, conditions);
+				final SoundEffect sound = BlockRegistry.getStepSound(state, random, conditions, conditionMask);
 				if (sound != null)
 					sound.doEffect(state, world, pos, SoundCategory.BLOCKS, random);
 			}
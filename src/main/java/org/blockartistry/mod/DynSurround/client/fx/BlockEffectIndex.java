@@ -0,0 +1,229 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.fx;
+
+import org.blockartistry.mod.DynSurround.client.WorldEventListenerAdapter;
+import org.blockartistry.mod.DynSurround.data.BlockRegistry;
+import org.blockartistry.mod.DynSurround.event.RegistryReloadEvent;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IWorldEventListener;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Client side index of the block positions within each chunk section whose
+ * block has effects or sounds registered in the BlockRegistry. A section is
+ * scanned the first time it is queried and is kept current from block
+ * updates, so the block effect handler only has to look up blocks that can
+ * actually do something.
+ *
+ * Each section is a 4096 bit set addressed by (y << 8 | z << 4 | x)
+ * relative to the section.
+ */
+@SideOnly(Side.CLIENT)
+public final class BlockEffectIndex {
+
+	private static final int WORDS = 4096 / 64;
+
+	// Sections scanned per tick; probes into sections past that are
+	// reported as candidates so the caller checks the block itself
+	private static final int SCANS_PER_TICK = 4;
+
+	// Shared by every section without anything interesting in it
+	private static final long[] EMPTY = new long[WORDS];
+
+	private static final TLongObjectHashMap<long[]> sections = new TLongObjectHashMap<long[]>();
+	private static World indexWorld = null;
+	private static int scanBudget = SCANS_PER_TICK;
+
+	private static final IWorldEventListener listener = new BlockUpdateListener();
+
+	private static long key(final int chunkX, final int sectionY, final int chunkZ) {
+		return ((long) chunkX & 0x3FFFFFFL) << 30 | ((long) chunkZ & 0x3FFFFFFL) << 4 | (sectionY & 15);
+	}
+
+	private static int pack(final int x, final int y, final int z) {
+		return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+	}
+
+	private static boolean isSet(final long[] bits, final int packed) {
+		return (bits[packed >> 6] & 1L << packed) != 0;
+	}
+
+	private static void reset(final World world) {
+		if (indexWorld != null)
+			indexWorld.removeEventListener(listener);
+		sections.clear();
+		indexWorld = world;
+		if (indexWorld != null)
+			indexWorld.addEventListener(listener);
+	}
+
+	private static long[] scan(final Chunk chunk, final int sectionY) {
+		final ExtendedBlockStorage storage = chunk.getBlockStorageArray()[sectionY];
+		if (storage == null || storage.isEmpty())
+			return EMPTY;
+
+		long[] bits = EMPTY;
+		for (int y = 0; y < 16; y++)
+			for (int z = 0; z < 16; z++)
+				for (int x = 0; x < 16; x++)
+					if (BlockRegistry.hasEffectsOrSounds(storage.get(x, y, z))) {
+						if (bits == EMPTY)
+							bits = new long[WORDS];
+						final int packed = pack(x, y, z);
+						bits[packed >> 6] |= 1L << packed;
+					}
+		return bits;
+	}
+
+	/*
+	 * Called once per tick before probing; limits how many sections the
+	 * probes can cause to be scanned.
+	 */
+	public static void resetScanBudget() {
+		scanBudget = SCANS_PER_TICK;
+	}
+
+	/*
+	 * Whether the block at the position may have effects or sounds. False
+	 * for unloaded chunks. True when the section has not been scanned yet
+	 * and this tick's scan budget is used up.
+	 */
+	public static boolean isCandidate(final World world, final int x, final int y, final int z) {
+		if (y < 0 || y > 255)
+			return false;
+
+		if (world != indexWorld)
+			reset(world);
+
+		final int chunkX = x >> 4;
+		final int sectionY = y >> 4;
+		final int chunkZ = z >> 4;
+		final long key = key(chunkX, sectionY, chunkZ);
+		long[] bits = sections.get(key);
+		if (bits == null) {
+			final Chunk chunk = world.getChunkProvider().getLoadedChunk(chunkX, chunkZ);
+			if (chunk == null || chunk.isEmpty())
+				return false;
+			if (scanBudget <= 0)
+				return true;
+			scanBudget--;
+			bits = scan(chunk, sectionY);
+			sections.put(key, bits);
+		}
+		return isSet(bits, pack(x, y, z));
+	}
+
+	private static void invalidateChunk(final int chunkX, final int chunkZ) {
+		for (int y = 0; y < 16; y++)
+			sections.remove(key(chunkX, y, chunkZ));
+	}
+
+	private static void invalidateRange(final int x1, final int y1, final int z1, final int x2, final int y2,
+			final int z2) {
+		final int minY = Math.max(Math.min(y1, y2), 0) >> 4;
+		final int maxY = Math.min(Math.max(y1, y2), 255) >> 4;
+		for (int cX = Math.min(x1, x2) >> 4; cX <= Math.max(x1, x2) >> 4; cX++)
+			for (int cZ = Math.min(z1, z2) >> 4; cZ <= Math.max(z1, z2) >> 4; cZ++)
+				for (int y = minY; y <= maxY; y++)
+					sections.remove(key(cX, y, cZ));
+	}
+
+	private static void blockChanged(final BlockPos pos, final IBlockState newState) {
+		final int y = pos.getY();
+		if (y < 0 || y > 255)
+			return;
+
+		final long key = key(pos.getX() >> 4, y >> 4, pos.getZ() >> 4);
+		long[] bits = sections.get(key);
+		if (bits == null)
+			return;
+
+		final int packed = pack(pos.getX(), y, pos.getZ());
+		final boolean interesting = BlockRegistry.hasEffectsOrSounds(newState);
+		if (interesting == isSet(bits, packed))
+			return;
+
+		if (bits == EMPTY) {
+			bits = new long[WORDS];
+			sections.put(key, bits);
+		}
+		bits[packed >> 6] ^= 1L << packed;
+	}
+
+	@SubscribeEvent
+	public void chunkLoad(final ChunkEvent.Load event) {
+		if (event.getWorld().isRemote && event.getWorld() == indexWorld)
+			invalidateChunk(event.getChunk().xPosition, event.getChunk().zPosition);
+	}
+
+	@SubscribeEvent
+	public void chunkUnload(final ChunkEvent.Unload event) {
+		if (event.getWorld().isRemote && event.getWorld() == indexWorld)
+			invalidateChunk(event.getChunk().xPosition, event.getChunk().zPosition);
+	}
+
+	@SubscribeEvent
+	public void worldUnload(final WorldEvent.Unload event) {
+		if (event.getWorld().isRemote && event.getWorld() == indexWorld)
+			reset(null);
+	}
+
+	@SubscribeEvent
+	public void registryReload(final RegistryReloadEvent.Block event) {
+		sections.clear();
+	}
+
+	/*
+	 * Single block updates adjust the index in place. Range updates, such
+	 * as partial chunk data from the server, drop the sections covered so
+	 * they are rescanned on the next query.
+	 */
+	private static final class BlockUpdateListener extends WorldEventListenerAdapter {
+
+		@Override
+		public void notifyBlockUpdate(final World world, final BlockPos pos, final IBlockState oldState,
+				final IBlockState newState, final int flags) {
+			if (world == indexWorld && oldState != newState)
+				blockChanged(pos, newState);
+		}
+
+		@Override
+		public void markBlockRangeForRenderUpdate(final int x1, final int y1, final int z1, final int x2,
+				final int y2, final int z2) {
+			if (indexWorld != null)
+				invalidateRange(x1, y1, z1, x2, y2, z2);
+		}
+	}
+}
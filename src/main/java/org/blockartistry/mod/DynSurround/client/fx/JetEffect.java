@@ -32,6 +32,7 @@ import org.blockartistry.mod.DynSurround.client.fx.particle.ParticleFireJet;
 import org.blockartistry.mod.DynSurround.client.fx.particle.ParticleFountainJet;
 import org.blockartistry.mod.DynSurround.client.fx.particle.ParticleJet;
 import org.blockartistry.mod.DynSurround.client.fx.particle.ParticleSteamJet;
+import org.blockartistry.mod.DynSurround.client.replay.EffectCapture;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockLiquid;
@@ -71,7 +72,10 @@ public abstract class JetEffect extends BlockEffect {
 	}
 
 	protected void addEffect(final ParticleJet fx) {
-		Minecraft.getMinecraft().effectRenderer.addEffect(fx);
+		if (EffectCapture.isCapturing())
+			EffectCapture.getSink().onParticle(fx);
+		else
+			Minecraft.getMinecraft().effectRenderer.addEffect(fx);
 		fx.playSound();
 	}
 
@@ -25,9 +25,6 @@
 package org.blockartistry.mod.DynSurround.client.fx.particle;
 
 import net.minecraft.client.particle.IParticleFactory;
-import net.minecraft.client.particle.ParticleLava;
-import net.minecraft.client.particle.ParticleRain;
-import net.minecraft.client.particle.ParticleSmokeNormal;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
@@ -37,8 +34,8 @@ public class ParticleFactory {
 	private ParticleFactory() {
 	}
 
-	public static final IParticleFactory lavaSpark = new ParticleLava.Factory();
-	public static final IParticleFactory smoke = new ParticleSmokeNormal.Factory();
-	public static final IParticleFactory rain = new ParticleRain.Factory();
+	public static final IParticleFactory lavaSpark = new ParticleLavaPooled.Factory();
+	public static final IParticleFactory smoke = new ParticleSmokePooled.Factory();
+	public static final IParticleFactory rain = new ParticleRainPooled.Factory();
 	
 }
@@ -0,0 +1,184 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.fx.particle;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.client.particle.IParticleFactory;
+import net.minecraft.client.particle.Particle;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Bounded pool of short lived particles. A particle goes back on the free
+ * queue when it expires and is handed out again once a client tick has gone
+ * by, which is after the ParticleManager has dropped it from its lists. If
+ * the pool is at its cap with nothing free the request is refused rather
+ * than creating more, so heavy storms thin out instead of flooding the
+ * effect renderer.
+ *
+ * Particles the ParticleManager throws away without expiring them (its
+ * own layer cap) stop getting updates; they are reclaimed when the pool
+ * runs dry.
+ *
+ * Time is counted in client ticks by tick(), not world time. The server
+ * overwrites the world clock, and a jump after a client stall would make
+ * every live particle look abandoned.
+ */
+@SideOnly(Side.CLIENT)
+public abstract class ParticlePool<T extends Particle & IPooledParticle> implements IParticleFactory {
+
+	// Ticks without an update before a live particle is considered dropped
+	private static final int ORPHAN_TICKS = 5;
+
+	// Client ticks where particles were updated
+	private static long clock = 0;
+
+	/*
+	 * Called once per client tick that runs the ParticleManager.
+	 */
+	public static void tick() {
+		clock++;
+	}
+
+	/*
+	 * Pool bookkeeping carried by each particle.
+	 */
+	public static final class Slot {
+		private final ParticlePool<?> pool;
+		private Particle particle;
+		private boolean released;
+		private long releasedAt;
+		private long lastSeen;
+
+		private Slot(final ParticlePool<?> pool) {
+			this.pool = pool;
+		}
+
+		/*
+		 * Call from the particle's onUpdate().
+		 */
+		public void touch() {
+			this.lastSeen = clock;
+		}
+
+		/*
+		 * Call from the particle's setExpired().
+		 */
+		public void release() {
+			if (!this.released) {
+				this.released = true;
+				this.releasedAt = clock;
+				this.pool.free.addLast(this);
+			}
+		}
+	}
+
+	private final ArrayDeque<Slot> free = new ArrayDeque<Slot>();
+	private final List<Slot> all = new ArrayList<Slot>();
+	private World world;
+	private long lastReclaim = -1;
+
+	/*
+	 * Creates a new particle bound to the slot.
+	 */
+	protected abstract T create(final Slot slot, final World world, final double x, final double y,
+			final double z);
+
+	/*
+	 * Maximum number of particles the pool will have out at once.
+	 */
+	protected abstract int getCapacity();
+
+	@SuppressWarnings("unchecked")
+	private T take(final long now) {
+		final Slot slot = this.free.peekFirst();
+		if (slot == null || now - slot.releasedAt < 1)
+			return null;
+		this.free.pollFirst();
+		slot.released = false;
+		slot.lastSeen = now;
+		return (T) slot.particle;
+	}
+
+	private void reclaim(final long now) {
+		// Indexed so the sweep doesn't allocate an iterator
+		for (int i = 0; i < this.all.size(); i++) {
+			final Slot slot = this.all.get(i);
+			if (!slot.released && now - slot.lastSeen > ORPHAN_TICKS) {
+				slot.released = true;
+				slot.releasedAt = slot.lastSeen;
+				this.free.addLast(slot);
+			}
+		}
+	}
+
+	/*
+	 * Returns a particle reset to the given position, or null if the pool
+	 * is exhausted.
+	 */
+	public T acquire(final World world, final double x, final double y, final double z) {
+		if (world != this.world) {
+			// Old particles went away with the old world
+			this.free.clear();
+			this.all.clear();
+			this.world = world;
+		}
+
+		final long now = clock;
+		T particle = take(now);
+		if (particle != null) {
+			particle.reset(x, y, z);
+			return particle;
+		}
+
+		if (this.all.size() < getCapacity()) {
+			final Slot slot = new Slot(this);
+			slot.lastSeen = now;
+			particle = create(slot, world, x, y, z);
+			slot.particle = particle;
+			this.all.add(slot);
+			return particle;
+		}
+
+		if (this.lastReclaim != now) {
+			this.lastReclaim = now;
+			reclaim(now);
+			particle = take(now);
+			if (particle != null)
+				particle.reset(x, y, z);
+		}
+
+		return particle;
+	}
+
+	@Override
+	public Particle getEntityFX(final int particleID, final World world, final double x, final double y,
+			final double z, final double xSpeed, final double ySpeed, final double zSpeed, final int... parms) {
+		return acquire(world, x, y, z);
+	}
+}
@@ -24,14 +24,12 @@
 
 package org.blockartistry.mod.DynSurround.client.fx.particle;
 
+import org.blockartistry.mod.DynSurround.ModOptions;
 import org.blockartistry.mod.DynSurround.client.sound.SoundManager;
 import org.blockartistry.mod.DynSurround.data.BiomeRegistry;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
-import net.minecraft.client.particle.IParticleFactory;
-import net.minecraft.client.particle.Particle;
-import net.minecraft.client.particle.ParticleRain;
 import net.minecraft.util.SoundCategory;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
@@ -39,10 +37,12 @@ import net.minecraft.world.World;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
-public class ParticleRainOverride extends ParticleRain {
+@SideOnly(Side.CLIENT)
+public class ParticleRainOverride extends ParticleRainPooled {
 
-	protected ParticleRainOverride(World worldIn, double xCoordIn, double yCoordIn, double zCoordIn) {
-		super(worldIn, xCoordIn, yCoordIn, zCoordIn);
+	protected ParticleRainOverride(final ParticlePool.Slot slot, final World worldIn, final double xCoordIn,
+			final double yCoordIn, final double zCoordIn) {
+		super(slot, worldIn, xCoordIn, yCoordIn, zCoordIn);
 	}
 
 	@Override
@@ -72,11 +72,16 @@ public class ParticleRainOverride extends ParticleRain {
 	}
 
 
-	public static class Factory implements IParticleFactory
-	{
-		public Particle getEntityFX(int particleID, World worldIn, double xCoordIn, double yCoordIn, double zCoordIn, double xSpeedIn, double ySpeedIn, double zSpeedIn, int... p_178902_15_)
-		{
-			return new ParticleRainOverride(worldIn, xCoordIn, yCoordIn, zCoordIn);
+	public static class Factory extends ParticlePool<ParticleRainOverride> {
+		@Override
+		protected ParticleRainOverride create(final ParticlePool.Slot slot, final World world, final double x,
+				final double y, final double z) {
+			return new ParticleRainOverride(slot, world, x, y, z);
+		}
+
+		@Override
+		protected int getCapacity() {
+			return ModOptions.splashParticleCap;
 		}
 	}
 
@@ -0,0 +1,100 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.fx.particle;
+
+import org.blockartistry.mod.DynSurround.ModOptions;
+
+import net.minecraft.client.particle.ParticleRain;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Rain splash that is recycled through a ParticlePool.
+ */
+@SideOnly(Side.CLIENT)
+public class ParticleRainPooled extends ParticleRain implements IPooledParticle {
+
+	private final ParticlePool.Slot slot;
+
+	protected ParticleRainPooled(final ParticlePool.Slot slot, final World world, final double x, final double y,
+			final double z) {
+		super(world, x, y, z);
+		this.slot = slot;
+	}
+
+	/*
+	 * Mirrors the Particle and ParticleRain constructors.
+	 */
+	@Override
+	public void reset(final double x, final double y, final double z) {
+		this.isExpired = false;
+		this.onGround = false;
+		this.particleAge = 0;
+		this.setPosition(x, y, z);
+		this.prevPosX = x;
+		this.prevPosY = y;
+		this.prevPosZ = z;
+
+		double mx = (Math.random() * 2.0D - 1.0D) * 0.4D;
+		double my = (Math.random() * 2.0D - 1.0D) * 0.4D;
+		double mz = (Math.random() * 2.0D - 1.0D) * 0.4D;
+		final float speed = (float) (Math.random() + Math.random() + 1.0D) * 0.15F;
+		final float len = MathHelper.sqrt_double(mx * mx + my * my + mz * mz);
+		mx = mx / (double) len * (double) speed * 0.4D;
+		mz = mz / (double) len * (double) speed * 0.4D;
+
+		this.motionX = mx * 0.30000001192092896D;
+		this.motionY = Math.random() * 0.20000000298023224D + 0.10000000149011612D;
+		this.motionZ = mz * 0.30000001192092896D;
+		this.setParticleTextureIndex(19 + this.rand.nextInt(4));
+		this.particleMaxAge = (int) (8.0D / (Math.random() * 0.8D + 0.2D));
+	}
+
+	@Override
+	public void onUpdate() {
+		super.onUpdate();
+		this.slot.touch();
+	}
+
+	@Override
+	public void setExpired() {
+		super.setExpired();
+		this.slot.release();
+	}
+
+	public static class Factory extends ParticlePool<ParticleRainPooled> {
+		@Override
+		protected ParticleRainPooled create(final ParticlePool.Slot slot, final World world, final double x,
+				final double y, final double z) {
+			return new ParticleRainPooled(slot, world, x, y, z);
+		}
+
+		@Override
+		protected int getCapacity() {
+			return ModOptions.splashParticleCap;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.replay;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.blockartistry.mod.DynSurround.client.sound.SoundEffect;
+
+import net.minecraft.client.particle.Particle;
+import net.minecraft.util.SoundCategory;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Receives the sounds and particles the effect handlers would otherwise
+ * hand to the Minecraft sound system and particle manager. Installed by
+ * the replay runner so the handlers can run without a client.
+ */
+@SideOnly(Side.CLIENT)
+public interface EffectSink {
+
+	/*
+	 * A spot sound. Position is null for sounds played at the player.
+	 */
+	void onSound(final SoundEffect sound, @Nullable final BlockPos pos, @Nullable final SoundCategory category);
+
+	/*
+	 * The set of background sounds being requested this tick.
+	 */
+	void onAmbient(final List<SoundEffect> sounds);
+
+	void onParticle(final Particle particle);
+
+}
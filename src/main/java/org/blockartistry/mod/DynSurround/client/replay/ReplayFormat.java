@@ -0,0 +1,215 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.replay;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Layout of a replay file. The file is a gzip'd stream of tagged records:
+ *
+ * WORLD: dimension; the records that follow apply to this world
+ * SECTION: chunkX, sectionY, chunkZ, 4096 block state IDs (y, z, x order)
+ * BIOMES: chunkX, chunkZ, 256 biome IDs
+ * BLOCK: x, y, z, block state ID
+ * TICK: the player/world state for a tick
+ * END
+ *
+ * Chunk data is written as BIOMES followed by the chunk's non-empty
+ * SECTIONs the first time the chunk comes within range of the player, and
+ * again if it comes back after unloading. Block changes are written as they
+ * happen, so a reader that applies the records in order has the world as
+ * the player saw it when each TICK record is reached.
+ */
+@SideOnly(Side.CLIENT)
+public final class ReplayFormat {
+
+	public static final int MAGIC = 0x44535250; // DSRP
+	public static final int VERSION = 1;
+
+	public static final int TAG_END = 0;
+	public static final int TAG_SECTION = 1;
+	public static final int TAG_BIOMES = 2;
+	public static final int TAG_BLOCK = 3;
+	public static final int TAG_TICK = 4;
+	public static final int TAG_WORLD = 5;
+
+	private static final int FLAG_ON_GROUND = 1;
+	private static final int FLAG_SPRINTING = 2;
+	private static final int FLAG_SNEAKING = 4;
+	private static final int FLAG_FLYING = 8;
+	private static final int FLAG_BURNING = 16;
+	private static final int FLAG_CREATIVE = 32;
+	private static final int FLAG_RAINING = 64;
+	private static final int FLAG_THUNDERING = 128;
+
+	private ReplayFormat() {
+	}
+
+	/*
+	 * State captured for each tick.
+	 */
+	public static final class Frame {
+		public int tick;
+		public int dimension;
+		public long worldTime;
+		public float rainStrength;
+		public float thunderStrength;
+		public double posX;
+		public double posY;
+		public double posZ;
+		public float motionX;
+		public float motionY;
+		public float motionZ;
+		public float yaw;
+		public float pitch;
+		public float distanceWalked;
+		public float health;
+		public int foodLevel;
+		public int air;
+		public int flags;
+
+		public void capture(final int tick, final World world, final EntityPlayer player) {
+			this.tick = tick;
+			this.dimension = world.provider.getDimension();
+			this.worldTime = world.getWorldTime();
+			this.rainStrength = world.getRainStrength(1.0F);
+			this.thunderStrength = world.getThunderStrength(1.0F);
+			this.posX = player.posX;
+			this.posY = player.posY;
+			this.posZ = player.posZ;
+			this.motionX = (float) player.motionX;
+			this.motionY = (float) player.motionY;
+			this.motionZ = (float) player.motionZ;
+			this.yaw = player.rotationYaw;
+			this.pitch = player.rotationPitch;
+			this.distanceWalked = player.distanceWalkedModified;
+			this.health = player.getHealth();
+			this.foodLevel = player.getFoodStats().getFoodLevel();
+			this.air = player.getAir();
+
+			int f = 0;
+			if (player.onGround)
+				f |= FLAG_ON_GROUND;
+			if (player.isSprinting())
+				f |= FLAG_SPRINTING;
+			if (player.isSneaking())
+				f |= FLAG_SNEAKING;
+			if (player.capabilities.isFlying)
+				f |= FLAG_FLYING;
+			if (player.isBurning())
+				f |= FLAG_BURNING;
+			if (player.capabilities.isCreativeMode)
+				f |= FLAG_CREATIVE;
+			if (world.isRaining())
+				f |= FLAG_RAINING;
+			if (world.isThundering())
+				f |= FLAG_THUNDERING;
+			this.flags = f;
+		}
+
+		public void apply(final World world, final EntityPlayer player) {
+			world.getWorldInfo().setWorldTime(this.worldTime);
+			world.getWorldInfo().setRaining(isRaining());
+			world.getWorldInfo().setThundering(isThundering());
+			world.setRainStrength(this.rainStrength);
+			world.setThunderStrength(this.thunderStrength);
+
+			player.prevDistanceWalkedModified = player.distanceWalkedModified;
+			player.distanceWalkedModified = this.distanceWalked;
+			player.setPositionAndRotation(this.posX, this.posY, this.posZ, this.yaw, this.pitch);
+			player.motionX = this.motionX;
+			player.motionY = this.motionY;
+			player.motionZ = this.motionZ;
+			player.onGround = (this.flags & FLAG_ON_GROUND) != 0;
+			player.setSprinting((this.flags & FLAG_SPRINTING) != 0);
+			player.setSneaking((this.flags & FLAG_SNEAKING) != 0);
+			player.capabilities.isFlying = (this.flags & FLAG_FLYING) != 0;
+			player.capabilities.isCreativeMode = (this.flags & FLAG_CREATIVE) != 0;
+			if ((this.flags & FLAG_BURNING) != 0)
+				player.setFire(1);
+			else
+				player.extinguish();
+			player.setHealth(this.health);
+			player.getFoodStats().setFoodLevel(this.foodLevel);
+			player.setAir(this.air);
+		}
+
+		public boolean isRaining() {
+			return (this.flags & FLAG_RAINING) != 0;
+		}
+
+		public boolean isThundering() {
+			return (this.flags & FLAG_THUNDERING) != 0;
+		}
+
+		public void write(final DataOutput out) throws IOException {
+			out.writeInt(this.tick);
+			out.writeInt(this.dimension);
+			out.writeLong(this.worldTime);
+			out.writeFloat(this.rainStrength);
+			out.writeFloat(this.thunderStrength);
+			out.writeDouble(this.posX);
+			out.writeDouble(this.posY);
+			out.writeDouble(this.posZ);
+			out.writeFloat(this.motionX);
+			out.writeFloat(this.motionY);
+			out.writeFloat(this.motionZ);
+			out.writeFloat(this.yaw);
+			out.writeFloat(this.pitch);
+			out.writeFloat(this.distanceWalked);
+			out.writeFloat(this.health);
+			out.writeByte(this.foodLevel);
+			out.writeShort(this.air);
+			out.writeByte(this.flags);
+		}
+
+		public void read(final DataInput in) throws IOException {
+			this.tick = in.readInt();
+			this.dimension = in.readInt();
+			this.worldTime = in.readLong();
+			this.rainStrength = in.readFloat();
+			this.thunderStrength = in.readFloat();
+			this.posX = in.readDouble();
+			this.posY = in.readDouble();
+			this.posZ = in.readDouble();
+			this.motionX = in.readFloat();
+			this.motionY = in.readFloat();
+			this.motionZ = in.readFloat();
+			this.yaw = in.readFloat();
+			this.pitch = in.readFloat();
+			this.distanceWalked = in.readFloat();
+			this.health = in.readFloat();
+			this.foodLevel = in.readUnsignedByte();
+			this.air = in.readShort();
+			this.flags = in.readUnsignedByte();
+		}
+	}
+}
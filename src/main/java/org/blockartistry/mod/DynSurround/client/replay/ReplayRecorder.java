@@ -0,0 +1,219 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import org.blockartistry.mod.DynSurround.ModLog;
+import org.blockartistry.mod.DynSurround.ModOptions;
+import org.blockartistry.mod.DynSurround.client.WorldEventListenerAdapter;
+
+import gnu.trove.set.hash.TLongHashSet;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Records the player trajectory and the surrounding blocks and biomes to
+ * a replay file so the effect handlers can be run against it later by
+ * the ReplayRunner.
+ */
+@SideOnly(Side.CLIENT)
+public final class ReplayRecorder {
+
+	private static DataOutputStream out = null;
+	private static File file = null;
+	private static World world = null;
+	private static int tick = 0;
+	private static final TLongHashSet recorded = new TLongHashSet();
+	private static final ReplayFormat.Frame frame = new ReplayFormat.Frame();
+
+	private static final WorldEventListenerAdapter listener = new WorldEventListenerAdapter() {
+		@Override
+		public void notifyBlockUpdate(final World w, final BlockPos pos, final IBlockState oldState,
+				final IBlockState newState, final int flags) {
+			if (w == world && oldState != newState
+					&& recorded.contains(ChunkPos.chunkXZ2Int(pos.getX() >> 4, pos.getZ() >> 4)))
+				writeBlock(pos, newState);
+		}
+	};
+
+	public static boolean isRecording() {
+		return out != null;
+	}
+
+	public static File getFile() {
+		return file;
+	}
+
+	public static void start(final File target) throws IOException {
+		stop();
+		out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(target))));
+		out.writeInt(ReplayFormat.MAGIC);
+		out.writeShort(ReplayFormat.VERSION);
+		file = target;
+		tick = 0;
+	}
+
+	public static void stop() {
+		if (out == null)
+			return;
+
+		try {
+			out.writeByte(ReplayFormat.TAG_END);
+			out.close();
+		} catch (final IOException ex) {
+			ModLog.error("Unable to close replay file", ex);
+		}
+
+		detach();
+		out = null;
+	}
+
+	private static void detach() {
+		if (world != null)
+			world.removeEventListener(listener);
+		world = null;
+		recorded.clear();
+	}
+
+	private static void fail(final IOException ex) {
+		ModLog.error("Unable to write replay file; recording stopped", ex);
+		try {
+			out.close();
+		} catch (final IOException e) {
+			;
+		}
+		detach();
+		out = null;
+	}
+
+	private static void writeBlock(final BlockPos pos, final IBlockState state) {
+		try {
+			out.writeByte(ReplayFormat.TAG_BLOCK);
+			out.writeInt(pos.getX());
+			out.writeShort(pos.getY());
+			out.writeInt(pos.getZ());
+			out.writeShort(Block.getStateId(state));
+		} catch (final IOException ex) {
+			fail(ex);
+		}
+	}
+
+	/*
+	 * Block radius the replayed handlers read around the player. Block
+	 * effects probe out to specialEffectRange; the biome survey, which also
+	 * drives fog, reads one column past biomeSurveyRange as it slides.
+	 * Anything outside the recorded chunks reads as air and the default
+	 * biome during replay.
+	 */
+	private static int getCaptureRange() {
+		return Math.max(ModOptions.specialEffectRange, ModOptions.biomeSurveyRange + 1);
+	}
+
+	private static void writeChunk(final Chunk chunk) throws IOException {
+		out.writeByte(ReplayFormat.TAG_BIOMES);
+		out.writeInt(chunk.xPosition);
+		out.writeInt(chunk.zPosition);
+		out.write(chunk.getBiomeArray());
+
+		final ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+		for (int sY = 0; sY < storage.length; sY++) {
+			if (storage[sY] == null || storage[sY].isEmpty())
+				continue;
+			out.writeByte(ReplayFormat.TAG_SECTION);
+			out.writeInt(chunk.xPosition);
+			out.writeByte(sY);
+			out.writeInt(chunk.zPosition);
+			for (int y = 0; y < 16; y++)
+				for (int z = 0; z < 16; z++)
+					for (int x = 0; x < 16; x++)
+						out.writeShort(Block.getStateId(storage[sY].get(x, y, z)));
+		}
+	}
+
+	/*
+	 * Called once per client tick after the effect handlers have run.
+	 */
+	public static void tick(final World w, final EntityPlayer player) {
+		if (out == null)
+			return;
+
+		try {
+			if (w != world) {
+				detach();
+				world = w;
+				world.addEventListener(listener);
+				out.writeByte(ReplayFormat.TAG_WORLD);
+				out.writeInt(world.provider.getDimension());
+			}
+
+			final int range = (getCaptureRange() >> 4) + 1;
+			final int pX = MathHelper.floor_double(player.posX) >> 4;
+			final int pZ = MathHelper.floor_double(player.posZ) >> 4;
+			for (int cX = pX - range; cX <= pX + range; cX++)
+				for (int cZ = pZ - range; cZ <= pZ + range; cZ++) {
+					final long key = ChunkPos.chunkXZ2Int(cX, cZ);
+					if (recorded.contains(key))
+						continue;
+					final Chunk chunk = world.getChunkProvider().getLoadedChunk(cX, cZ);
+					if (chunk == null || chunk.isEmpty())
+						continue;
+					writeChunk(chunk);
+					recorded.add(key);
+				}
+
+			frame.capture(tick++, world, player);
+			out.writeByte(ReplayFormat.TAG_TICK);
+			frame.write(out);
+		} catch (final IOException ex) {
+			fail(ex);
+		}
+	}
+
+	/*
+	 * The chunk is written again if it comes back, as its contents may have
+	 * changed while it was unloaded.
+	 */
+	@SubscribeEvent
+	public void chunkUnload(final ChunkEvent.Unload event) {
+		if (out != null && event.getWorld() == world)
+			recorded.remove(ChunkPos.chunkXZ2Int(event.getChunk().xPosition, event.getChunk().zPosition));
+	}
+}
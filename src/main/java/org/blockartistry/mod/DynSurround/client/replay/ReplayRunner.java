@@ -0,0 +1,280 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.replay;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import javax.annotation.Nullable;
+
+import org.blockartistry.mod.DynSurround.ModOptions;
+import org.blockartistry.mod.DynSurround.client.BiomeSurveyHandler;
+import org.blockartistry.mod.DynSurround.client.EnvironStateHandler;
+import org.blockartistry.mod.DynSurround.client.FogEffectHandler;
+import org.blockartistry.mod.DynSurround.client.IClientEffectHandler;
+import org.blockartistry.mod.DynSurround.client.PlayerSoundEffectHandler;
+import org.blockartistry.mod.DynSurround.client.fx.BlockEffectHandler;
+import org.blockartistry.mod.DynSurround.client.sound.SoundEffect;
+import org.blockartistry.mod.DynSurround.data.BiomeRegistry;
+import org.blockartistry.mod.DynSurround.data.BlockRegistry;
+import org.blockartistry.mod.DynSurround.data.DimensionRegistry;
+import org.blockartistry.mod.DynSurround.util.TimingHistogram;
+
+import net.minecraft.client.particle.Particle;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.SoundCategory;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Headless driver for the client effect handlers. Plays a file written by
+ * the ReplayRecorder through the handlers against a ReplayWorld with the
+ * sound and particle output captured, then reports the time and
+ * allocations per handler. The captured sound/particle stream is written
+ * to a text file so runs can be diffed.
+ *
+ * Usage: ReplayRunner <replay file> [event output file]
+ */
+@SideOnly(Side.CLIENT)
+public final class ReplayRunner implements EffectSink {
+
+	private static final class Stats {
+		public final IClientEffectHandler handler;
+		public final String name;
+		public final TimingHistogram timing = new TimingHistogram();
+		public long totalNanos;
+		public long allocatedBytes;
+
+		public Stats(final IClientEffectHandler handler) {
+			this.handler = handler;
+			this.name = handler.getClass().getSimpleName();
+		}
+	}
+
+	private final List<Stats> handlers = new ArrayList<Stats>();
+	private final PrintWriter events;
+	private final com.sun.management.ThreadMXBean threads;
+
+	private ReplayWorld world = null;
+	private ReplayPlayer player = null;
+	private int tick = 0;
+	private int soundCount = 0;
+	private int particleCount = 0;
+
+	public ReplayRunner(final PrintWriter events) {
+		this.events = events;
+
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported())
+			this.threads = (com.sun.management.ThreadMXBean) bean;
+		else
+			this.threads = null;
+
+		this.handlers.add(new Stats(new EnvironStateHandler()));
+		this.handlers.add(new Stats(new BiomeSurveyHandler()));
+		this.handlers.add(new Stats(new FogEffectHandler()));
+		this.handlers.add(new Stats(new BlockEffectHandler()));
+		if (ModOptions.enableBiomeSounds)
+			this.handlers.add(new Stats(new PlayerSoundEffectHandler()));
+	}
+
+	private long allocated() {
+		return this.threads != null ? this.threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+	}
+
+	private void ensureWorld(final int dimension) {
+		if (this.world == null || this.world.provider.getDimension() != dimension) {
+			this.world = new ReplayWorld(dimension);
+			this.player = new ReplayPlayer(this.world);
+			DimensionRegistry.loading(this.world);
+		}
+	}
+
+	private void runTick(final ReplayFormat.Frame frame) {
+		ensureWorld(frame.dimension);
+		frame.apply(this.world, this.player);
+		this.tick = frame.tick;
+
+		for (final Stats stats : this.handlers) {
+			final long mem = allocated();
+			final long start = System.nanoTime();
+			stats.handler.process(this.world, this.player);
+			final long elapsed = System.nanoTime() - start;
+			stats.allocatedBytes += allocated() - mem;
+			stats.totalNanos += elapsed;
+			stats.timing.record(elapsed);
+		}
+	}
+
+	public void run(final DataInputStream in) throws IOException {
+		if (in.readInt() != ReplayFormat.MAGIC)
+			throw new IOException("Not a replay file");
+		final int version = in.readShort();
+		if (version != ReplayFormat.VERSION)
+			throw new IOException("Unsupported replay version " + version);
+
+		final ReplayFormat.Frame frame = new ReplayFormat.Frame();
+		final byte[] biomes = new byte[256];
+		final short[] states = new short[4096];
+
+		while (true) {
+			final int tag;
+			try {
+				tag = in.readByte();
+			} catch (final EOFException ex) {
+				break;
+			}
+
+			if (tag == ReplayFormat.TAG_END)
+				break;
+
+			switch (tag) {
+			case ReplayFormat.TAG_BIOMES: {
+				final int cX = in.readInt();
+				final int cZ = in.readInt();
+				in.readFully(biomes);
+				this.world.setBiomes(cX, cZ, biomes.clone());
+				break;
+			}
+			case ReplayFormat.TAG_SECTION: {
+				final int cX = in.readInt();
+				final int sY = in.readByte();
+				final int cZ = in.readInt();
+				for (int i = 0; i < states.length; i++)
+					states[i] = in.readShort();
+				this.world.setSection(cX, sY, cZ, states);
+				break;
+			}
+			case ReplayFormat.TAG_BLOCK: {
+				final int x = in.readInt();
+				final int y = in.readShort();
+				final int z = in.readInt();
+				final int state = in.readShort() & 0xFFFF;
+				this.world.setBlock(x, y, z, state);
+				break;
+			}
+			case ReplayFormat.TAG_WORLD:
+				ensureWorld(in.readInt());
+				break;
+			case ReplayFormat.TAG_TICK:
+				frame.read(in);
+				runTick(frame);
+				break;
+			default:
+				throw new IOException("Unknown record tag " + tag);
+			}
+		}
+	}
+
+	public void report(final PrintWriter out) {
+		out.println(String.format("Ticks: %d, sounds: %d, particles: %d", this.tick + 1, this.soundCount,
+				this.particleCount));
+		out.println("handler,calls,total ms,mean us,p50 us,p99 us,max us,allocated bytes");
+		for (final Stats stats : this.handlers) {
+			final TimingHistogram t = stats.timing;
+			out.println(String.format("%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%d", stats.name, t.getCount(),
+					stats.totalNanos / 1000000.0D, t.getMean() / 1000.0D, t.getValueAtPercentile(50) / 1000.0D,
+					t.getValueAtPercentile(99) / 1000.0D, t.getMax() / 1000.0D, stats.allocatedBytes));
+		}
+		out.flush();
+	}
+
+	private static String nameOf(final SoundEffect sound) {
+		return sound.sound != null ? sound.sound.getSoundName().toString() : "<none>";
+	}
+
+	@Override
+	public void onSound(final SoundEffect sound, @Nullable final BlockPos pos,
+			@Nullable final SoundCategory category) {
+		this.soundCount++;
+		if (pos != null)
+			this.events.println(String.format("%d\tsound\t%s\t%d\t%d\t%d\t%s", this.tick, nameOf(sound), pos.getX(),
+					pos.getY(), pos.getZ(), category));
+		else
+			this.events.println(String.format("%d\tsound\t%s\tplayer\t%s", this.tick, nameOf(sound), category));
+	}
+
+	@Override
+	public void onAmbient(final List<SoundEffect> sounds) {
+		final StringBuilder builder = new StringBuilder();
+		for (final SoundEffect sound : sounds) {
+			if (builder.length() > 0)
+				builder.append(',');
+			builder.append(nameOf(sound));
+		}
+		this.events.println(String.format("%d\tambient\t%s", this.tick, builder.toString()));
+	}
+
+	@Override
+	public void onParticle(final Particle particle) {
+		this.particleCount++;
+		final AxisAlignedBB box = particle.getEntityBoundingBox();
+		this.events.println(String.format("%d\tparticle\t%s\t%.2f\t%.2f\t%.2f", this.tick,
+				particle.getClass().getSimpleName(), (box.minX + box.maxX) / 2.0D, box.minY,
+				(box.minZ + box.maxZ) / 2.0D));
+	}
+
+	public static void main(final String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("Usage: ReplayRunner <replay file> [event output file]");
+			System.exit(1);
+		}
+
+		final File replay = new File(args[0]);
+		final File eventFile = new File(args.length > 1 ? args[1] : args[0] + ".events.txt");
+
+		Bootstrap.register();
+		DimensionRegistry.initialize();
+		BiomeRegistry.initialize();
+		BlockRegistry.initialize();
+
+		final PrintWriter events = new PrintWriter(new FileWriter(eventFile));
+		final DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(new FileInputStream(replay))));
+		final ReplayRunner runner = new ReplayRunner(events);
+		EffectCapture.setSink(runner);
+		try {
+			runner.run(in);
+		} finally {
+			EffectCapture.setSink(null);
+			in.close();
+			events.close();
+		}
+
+		runner.report(new PrintWriter(System.out));
+	}
+}
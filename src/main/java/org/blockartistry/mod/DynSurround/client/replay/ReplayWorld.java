@@ -0,0 +1,127 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.replay;
+
+import java.util.Arrays;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.multiplayer.ChunkProviderClient;
+import net.minecraft.profiler.Profiler;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.GameType;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldProvider;
+import net.minecraft.world.WorldProviderEnd;
+import net.minecraft.world.WorldProviderHell;
+import net.minecraft.world.WorldProviderSurface;
+import net.minecraft.world.WorldSettings;
+import net.minecraft.world.WorldType;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraft.world.storage.WorldInfo;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Client world that is populated from a replay file rather than the
+ * network. Only the recorded chunks exist; everything else reads as air.
+ */
+@SideOnly(Side.CLIENT)
+public class ReplayWorld extends World {
+
+	private final ChunkProviderClient chunks;
+
+	private static WorldProvider providerFor(final int dimension) {
+		final WorldProvider provider;
+		if (dimension == -1)
+			provider = new WorldProviderHell();
+		else if (dimension == 1)
+			provider = new WorldProviderEnd();
+		else
+			provider = new WorldProviderSurface();
+		provider.setDimension(dimension);
+		return provider;
+	}
+
+	public ReplayWorld(final int dimension) {
+		super(null, new WorldInfo(new WorldSettings(0L, GameType.SURVIVAL, false, false, WorldType.DEFAULT), "replay"),
+				providerFor(dimension), new Profiler(), true);
+		this.provider.registerWorld(this);
+		this.chunks = new ChunkProviderClient(this);
+		this.chunkProvider = this.chunks;
+	}
+
+	@Override
+	protected IChunkProvider createChunkProvider() {
+		return this.chunks;
+	}
+
+	@Override
+	protected boolean isChunkLoaded(final int x, final int z, final boolean allowEmpty) {
+		return allowEmpty || !this.chunks.provideChunk(x, z).isEmpty();
+	}
+
+	private Chunk getOrLoadChunk(final int chunkX, final int chunkZ) {
+		final Chunk chunk = this.chunks.getLoadedChunk(chunkX, chunkZ);
+		return chunk != null ? chunk : this.chunks.loadChunk(chunkX, chunkZ);
+	}
+
+	/*
+	 * The biomes open a chunk record, so any sections left from an earlier
+	 * copy of the chunk are dropped; the sections that follow replace them.
+	 */
+	public void setBiomes(final int chunkX, final int chunkZ, final byte[] biomes) {
+		final Chunk chunk = getOrLoadChunk(chunkX, chunkZ);
+		chunk.setBiomeArray(biomes);
+		Arrays.fill(chunk.getBlockStorageArray(), null);
+	}
+
+	/*
+	 * Block state IDs are in y, z, x order.
+	 */
+	public void setSection(final int chunkX, final int sectionY, final int chunkZ, final short[] states) {
+		final Chunk chunk = getOrLoadChunk(chunkX, chunkZ);
+		final ExtendedBlockStorage storage = new ExtendedBlockStorage(sectionY << 4, !this.provider.getHasNoSky());
+		int idx = 0;
+		for (int y = 0; y < 16; y++)
+			for (int z = 0; z < 16; z++)
+				for (int x = 0; x < 16; x++)
+					storage.set(x, y, z, Block.getStateById(states[idx++] & 0xFFFF));
+		chunk.getBlockStorageArray()[sectionY] = storage;
+		chunk.generateSkylightMap();
+	}
+
+	/*
+	 * Goes through the world so that listeners see the change the same as
+	 * they would an update from the server.
+	 */
+	public void setBlock(final int x, final int y, final int z, final int stateId) {
+		final BlockPos pos = new BlockPos(x, y, z);
+		final IBlockState state = Block.getStateById(stateId);
+		getOrLoadChunk(x >> 4, z >> 4);
+		setBlockState(pos, state, 2);
+	}
+}
@@ -24,11 +24,11 @@
 package org.blockartistry.mod.DynSurround.client.sound;
 
 import java.util.Random;
-import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
 
 import org.apache.commons.lang3.StringUtils;
+import org.blockartistry.mod.DynSurround.data.ConditionMatcher;
 import org.blockartistry.mod.DynSurround.data.config.SoundConfig;
 import org.blockartistry.mod.DynSurround.util.SoundUtils;
 
@@ -62,7 +62,7 @@ public final class SoundEffect {
 
 	public final @Nullable SoundEvent sound;
 	public final String conditions;
-	private final Pattern pattern;
+	private final ConditionMatcher matcher;
 	public final SoundType type;
 	public float volume;
 	public final float pitch;
@@ -89,7 +89,7 @@ public final class SoundEffect {
 		this.volume = volume;
 		this.pitch = pitch;
 		this.conditions = ".*";
-		this.pattern = null;
+		this.matcher = ConditionMatcher.ALWAYS;
 		this.weight = 1;
 		this.type = SoundType.SPOT;
 		this.variable = variable;
@@ -102,7 +102,7 @@ public final class SoundEffect {
 		this.volume = effect.volume;
 		this.pitch = effect.pitch;
 		this.conditions = effect.conditions;
-		this.pattern = effect.pattern;
+		this.matcher = effect.matcher;
 		this.weight = effect.weight;
 		this.type = effect.type;
 		this.variable = effect.variable;
@@ -115,7 +115,7 @@ public final class SoundEffect {
 		this.conditions = StringUtils.isEmpty(record.conditions) ? ".*" : record.conditions;
 		this.volume = record.volume == null ? 1.0F : record.volume.floatValue();
 		this.pitch = record.pitch == null ? 1.0F : record.pitch.floatValue();
-		this.pattern = Pattern.compile(this.conditions);
+		this.matcher = ConditionMatcher.compile(this.conditions);
 		this.weight = record.weight == null ? 10 : record.weight.intValue();
 		this.variable = record.variable != null && record.variable.booleanValue();
 		this.repeatDelayRandom = record.repeatDelayRandom == null ? 0 : record.repeatDelayRandom.intValue();
@@ -135,8 +135,12 @@ public final class SoundEffect {
 		}
 	}
 
-	public boolean matches(final String conditions) {
-		return pattern.matcher(conditions).matches();
+	public boolean isConditionCompiled() {
+		return this.matcher.isCompiled();
+	}
+
+	public boolean matches(final String conditions, final long conditionMask) {
+		return this.matcher.matches(conditions, conditionMask);
 	}
 
 	public float getVolume() {
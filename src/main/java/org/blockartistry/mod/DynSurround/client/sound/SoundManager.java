@@ -36,6 +36,7 @@ import javax.annotation.Nullable;
 import org.blockartistry.mod.DynSurround.ModLog;
 import org.blockartistry.mod.DynSurround.ModOptions;
 import org.blockartistry.mod.DynSurround.client.EnvironStateHandler.EnvironState;
+import org.blockartistry.mod.DynSurround.client.replay.EffectCapture;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.openal.AL;
 import org.lwjgl.openal.ALC10;
@@ -68,6 +69,11 @@ public class SoundManager {
 	}
 
 	public static void queueAmbientSounds(final List<SoundEffect> sounds) {
+		if (EffectCapture.isCapturing()) {
+			EffectCapture.getSink().onAmbient(sounds);
+			return;
+		}
+
 		// Need to remove sounds that are active but not
 		// in the incoming list
 		final List<SoundEffect> active = new ArrayList<SoundEffect>(emitters.keySet());
@@ -94,6 +100,9 @@ public class SoundManager {
 	}
 
 	public static void update() {
+		if (EffectCapture.isCapturing())
+			return;
+
 		for (final Emitter emitter : emitters.values())
 			emitter.update();
 
@@ -132,6 +141,11 @@ public class SoundManager {
 
 	public static void playSoundAtPlayer(EntityPlayer player, final SoundEffect sound, @Nullable final SoundCategory categoryOverride) {
 
+		if (EffectCapture.isCapturing()) {
+			EffectCapture.getSink().onSound(sound, null, categoryOverride);
+			return;
+		}
+
 		if (player == null)
 			player = EnvironState.getPlayer();
 
@@ -144,6 +158,11 @@ public class SoundManager {
 	}
 
 	public static void playSoundAt(final BlockPos pos, final SoundEffect sound, final int tickDelay, @Nullable final SoundCategory categoryOverride) {
+		if (EffectCapture.isCapturing()) {
+			EffectCapture.getSink().onSound(sound, pos, categoryOverride);
+			return;
+		}
+
 		if (tickDelay > 0 && !canFitSound())
 			return;
 
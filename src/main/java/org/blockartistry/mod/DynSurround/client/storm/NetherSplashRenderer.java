@@ -33,8 +33,8 @@ import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.particle.Particle;
 import net.minecraft.init.Blocks;
 import net.minecraft.util.SoundEvent;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
 
 public class NetherSplashRenderer extends StormSplashRenderer {
@@ -48,23 +48,33 @@ public class NetherSplashRenderer extends StormSplashRenderer {
 	protected Particle getBlockParticle(final IBlockState block, final boolean dust, final World world, final double x,
 			final double y, final double z) {
 		if (dust)
-			return ParticleFactory.smoke.getEntityFX(0, world, x, y, z, 0, 0, 0);
+			return ParticleFactory.smoke.getEntityFX(0, world, x, y, z, 0, 0, 0, NO_PARMS);
 		return null;
 	}
 
 	@Override
-	protected BlockPos getPrecipitationHeight(final World world, final int range, final BlockPos pos) {
+	protected int getPrecipitationHeight(final StormGeometry.ColumnSource source, final IBlockAccess blocks,
+			final int range, final int x, final int z) {
 		final int y = MathHelper.floor_double(EnvironState.getPlayer().posY);
 		boolean airBlockFound = false;
 		for (int i = range; i >= -range; i--) {
-			final BlockPos p = new BlockPos(pos.getX(), y + i, pos.getZ());
-			final IBlockState state = world.getBlockState(p);
-			if (airBlockFound && !MCHelper.isAirBlock(state, world, p) && state.getMaterial().isSolid())
-				return p.up();
-			if (MCHelper.isAirBlock(state, world, p))
+			scratch.setPos(x, y + i, z);
+			final IBlockState state = blocks.getBlockState(scratch);
+			if (airBlockFound && !MCHelper.isAirBlock(state, blocks, scratch) && state.getMaterial().isSolid())
+				return y + i + 1;
+			if (MCHelper.isAirBlock(state, blocks, scratch))
 				airBlockFound = true;
 		}
 
-		return new BlockPos(pos.getX(), 128, pos.getZ());
+		return 128;
+	}
+
+	/*
+	 * The grid reports no precipitation height for the Nether; the roof is
+	 * the sky here.
+	 */
+	@Override
+	protected int getSkyHeight(final World world, final int x, final int z) {
+		return world.getActualHeight();
 	}
 }
@@ -0,0 +1,210 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.storm;
+
+import org.blockartistry.mod.DynSurround.client.WeatherUtils;
+import org.blockartistry.mod.DynSurround.client.WorldEventListenerAdapter;
+import org.blockartistry.mod.DynSurround.data.BiomeRegistry;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IWorldEventListener;
+import net.minecraft.world.World;
+import net.minecraft.world.biome.Biome;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Cache of the per column data the storm renderers need around the player.
+ * Columns live in a 32x32 torus addressed by the low bits of the world X/Z
+ * so as the player moves only the columns that come into range get looked
+ * up again. The renderers reach at most 10 blocks out so nothing within
+ * range can alias. Columns are invalidated from block, light and chunk
+ * updates coming through a world listener.
+ */
+@SideOnly(Side.CLIENT)
+public final class PrecipitationGrid {
+
+	private static final int SIZE = 32;
+	private static final int MASK = SIZE - 1;
+
+	// Temperature at or above which precipitation is rain rather than snow
+	private static final float RAIN_TEMPERATURE = 0.15F;
+
+	public static final class Column {
+		private int x;
+		private int z;
+		private boolean valid;
+
+		public Biome biome;
+		public boolean hasDust;
+		public boolean hasPrecipitation;
+		public int height;
+		public boolean isWarm;
+
+		private boolean lightValid;
+		private int lightY;
+		private int light;
+
+		public int getX() {
+			return this.x;
+		}
+
+		public int getZ() {
+			return this.z;
+		}
+
+		/*
+		 * Combined light at the given height in this column. Kept from the
+		 * last query until the height changes or a light update comes in.
+		 */
+		public int getCombinedLight(final World world, final int y) {
+			if (!this.lightValid || this.lightY != y) {
+				pos.setPos(this.x, y, this.z);
+				this.light = world.getCombinedLight(pos, 0);
+				this.lightY = y;
+				this.lightValid = true;
+			}
+			return this.light;
+		}
+	}
+
+	private static final Column[] columns = new Column[SIZE * SIZE];
+	private static final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+	private static final IWorldEventListener listener = new UpdateListener();
+	private static World gridWorld = null;
+
+	// Bumped whenever cached column data is thrown away so consumers that
+	// derive data from the grid know to rebuild
+	private static int version = 0;
+
+	static {
+		for (int i = 0; i < columns.length; i++)
+			columns[i] = new Column();
+	}
+
+	private PrecipitationGrid() {
+	}
+
+	private static int index(final int x, final int z) {
+		return (z & MASK) << 5 | (x & MASK);
+	}
+
+	private static void reset(final World world) {
+		if (gridWorld != null)
+			gridWorld.removeEventListener(listener);
+		for (final Column c : columns)
+			c.valid = false;
+		version++;
+		gridWorld = world;
+		if (gridWorld != null)
+			gridWorld.addEventListener(listener);
+	}
+
+	private static int getPrecipitationHeight(final World world, final BlockPos pos) {
+		if (world.provider.getDimension() == -1)
+			return 0;
+		return world.getPrecipitationHeight(pos).getY();
+	}
+
+	private static void fill(final World world, final Column c, final int x, final int z) {
+		c.x = x;
+		c.z = z;
+		pos.setPos(x, 0, z);
+		c.biome = world.getBiome(pos);
+		c.hasDust = WeatherUtils.biomeHasDust(c.biome);
+		c.hasPrecipitation = BiomeRegistry.hasPrecipitation(c.biome);
+		c.height = getPrecipitationHeight(world, pos);
+		pos.setPos(x, c.height, z);
+		final float biomeTemp = c.biome.getFloatTemperature(pos);
+		c.isWarm = world.getBiomeProvider().getTemperatureAtHeight(biomeTemp, c.height) >= RAIN_TEMPERATURE;
+		c.lightValid = false;
+		c.valid = true;
+	}
+
+	public static Column get(final World world, final int x, final int z) {
+		if (world != gridWorld)
+			reset(world);
+
+		final Column c = columns[index(x, z)];
+		if (!c.valid || c.x != x || c.z != z)
+			fill(world, c, x, z);
+		return c;
+	}
+
+	public static int getVersion() {
+		return version;
+	}
+
+	private static void invalidate(final int x, final int z) {
+		final Column c = columns[index(x, z)];
+		if (c.valid && c.x == x && c.z == z) {
+			c.valid = false;
+			version++;
+		}
+	}
+
+	private static void invalidateLight(final int x, final int z) {
+		final Column c = columns[index(x, z)];
+		if (c.lightValid && c.x == x && c.z == z) {
+			c.lightValid = false;
+			version++;
+		}
+	}
+
+	private static void invalidate(final int x1, final int z1, final int x2, final int z2) {
+		// Anything wider than the grid touches every slot
+		if (x2 - x1 >= SIZE || z2 - z1 >= SIZE) {
+			for (final Column c : columns)
+				if (c.valid && c.x >= x1 && c.x <= x2 && c.z >= z1 && c.z <= z2) {
+					c.valid = false;
+					version++;
+				}
+			return;
+		}
+		for (int z = z1; z <= z2; z++)
+			for (int x = x1; x <= x2; x++)
+				invalidate(x, z);
+	}
+
+	private static final class UpdateListener extends WorldEventListenerAdapter {
+
+		@Override
+		public void notifyBlockUpdate(final World world, final BlockPos pos, final IBlockState oldState,
+				final IBlockState newState, final int flags) {
+			invalidate(pos.getX(), pos.getZ());
+		}
+
+		@Override
+		public void notifyLightSet(final BlockPos pos) {
+			invalidateLight(pos.getX(), pos.getZ());
+		}
+
+		@Override
+		public void markBlockRangeForRenderUpdate(final int x1, final int y1, final int z1, final int x2,
+				final int y2, final int z2) {
+			invalidate(x1, z1, x2, z2);
+		}
+	}
+}
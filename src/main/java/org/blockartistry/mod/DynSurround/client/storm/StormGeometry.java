@@ -0,0 +1,235 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.storm;
+
+import org.blockartistry.mod.DynSurround.data.BiomeRegistry;
+import org.blockartistry.mod.DynSurround.util.Color;
+import org.blockartistry.mod.DynSurround.util.XorShiftRandom;
+
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * The parts of the storm quads that only change when the player moves to
+ * another block or the precipitation grid changes: which columns have a
+ * quad, its corners, vertical extent, light, tint and the per column random
+ * values that drive the texture motion. The renderer fills in the texture
+ * offsets and alpha each frame. Nothing here touches GL.
+ */
+@SideOnly(Side.CLIENT)
+public final class StormGeometry {
+
+	public static final int RAIN = 0;
+	public static final int SNOW = 1;
+	public static final int DUST = 2;
+
+	private static final int MAX_RANGE = 10;
+	private static final int MAX_COLUMNS = (MAX_RANGE * 2 + 1) * (MAX_RANGE * 2 + 1);
+
+	private static final float[] RAIN_X_COORDS = new float[1024];
+	private static final float[] RAIN_Y_COORDS = new float[1024];
+
+	static {
+		for (int i = 0; i < 32; ++i) {
+			for (int j = 0; j < 32; ++j) {
+				final float f2 = (float) (j - 16);
+				final float f3 = (float) (i - 16);
+				final float f4 = MathHelper.sqrt_float(f2 * f2 + f3 * f3);
+				RAIN_X_COORDS[i << 5 | j] = -f3 / f4;
+				RAIN_Y_COORDS[i << 5 | j] = f2 / f4;
+			}
+		}
+	}
+
+	/*
+	 * Where build() gets its column data. The renderers go through the
+	 * shared PrecipitationGrid; tests can hand in their own columns.
+	 */
+	interface ColumnSource {
+		PrecipitationGrid.Column getColumn(final int x, final int z);
+
+		int getCombinedLight(final PrecipitationGrid.Column column, final int y);
+	}
+
+	/*
+	 * Reads columns from the PrecipitationGrid for the world last set.
+	 */
+	static final class GridSource implements ColumnSource {
+		private World world;
+
+		void setWorld(final World world) {
+			this.world = world;
+		}
+
+		@Override
+		public PrecipitationGrid.Column getColumn(final int x, final int z) {
+			return PrecipitationGrid.get(this.world, x, z);
+		}
+
+		@Override
+		public int getCombinedLight(final PrecipitationGrid.Column column, final int y) {
+			return column.getCombinedLight(this.world, y);
+		}
+	}
+
+	private final GridSource gridSource = new GridSource();
+	private final XorShiftRandom random = new XorShiftRandom();
+	private final Color tint = new Color(1.0F, 1.0F, 1.0F);
+
+	// Quad data in render order
+	public final int[] type = new int[MAX_COLUMNS];
+	public final int[] gridX = new int[MAX_COLUMNS];
+	public final int[] gridZ = new int[MAX_COLUMNS];
+	public final int[] hash = new int[MAX_COLUMNS];
+	public final double[] x0 = new double[MAX_COLUMNS];
+	public final double[] z0 = new double[MAX_COLUMNS];
+	public final double[] x1 = new double[MAX_COLUMNS];
+	public final double[] z1 = new double[MAX_COLUMNS];
+	public final int[] minY = new int[MAX_COLUMNS];
+	public final int[] maxY = new int[MAX_COLUMNS];
+	public final int[] lightSky = new int[MAX_COLUMNS];
+	public final int[] lightBlock = new int[MAX_COLUMNS];
+	public final float[] red = new float[MAX_COLUMNS];
+	public final float[] green = new float[MAX_COLUMNS];
+	public final float[] blue = new float[MAX_COLUMNS];
+	public final double[] randA = new double[MAX_COLUMNS];
+	public final float[] randB = new float[MAX_COLUMNS];
+	public final double[] randC = new double[MAX_COLUMNS];
+	public final float[] randD = new float[MAX_COLUMNS];
+	private int count;
+
+	// What the current contents were built from
+	private boolean built;
+	private World world;
+	private int version;
+	private int originX;
+	private int originY;
+	private int originZ;
+	private int locY;
+	private int range;
+
+	public int getCount() {
+		return this.count;
+	}
+
+	public boolean isCurrent(final World world, final int playerX, final int playerY, final int playerZ,
+			final int locY, final int range) {
+		return this.built && this.world == world && this.version == PrecipitationGrid.getVersion()
+				&& this.originX == playerX && this.originY == playerY && this.originZ == playerZ
+				&& this.locY == locY && this.range == range;
+	}
+
+	public void invalidate() {
+		this.built = false;
+	}
+
+	public void build(final World world, final int playerX, final int playerY, final int playerZ, final int locY,
+			final int range) {
+		this.gridSource.setWorld(world);
+		build(this.gridSource, world.provider.getDimension() == -1, playerX, playerY, playerZ, locY, range);
+
+		this.built = true;
+		this.world = world;
+		this.version = PrecipitationGrid.getVersion();
+		this.originX = playerX;
+		this.originY = playerY;
+		this.originZ = playerZ;
+		this.locY = locY;
+		this.range = range;
+	}
+
+	void build(final ColumnSource source, final boolean isNether, final int playerX, final int playerY,
+			final int playerZ, final int locY, final int range) {
+		final int r = Math.min(range, MAX_RANGE);
+		this.count = 0;
+
+		for (int gz = playerZ - r; gz <= playerZ + r; ++gz) {
+			for (int gx = playerX - r; gx <= playerX + r; ++gx) {
+				final PrecipitationGrid.Column column = source.getColumn(gx, gz);
+				final boolean hasDust = column.hasDust;
+				if (!hasDust && !column.hasPrecipitation)
+					continue;
+
+				final int precipHeight = column.height;
+				int k2 = playerY - r;
+				int l2 = playerY + r;
+				if (k2 < precipHeight)
+					k2 = precipHeight;
+				if (l2 < precipHeight)
+					l2 = precipHeight;
+				if (k2 == l2)
+					continue;
+
+				final int i3 = precipHeight < locY ? locY : precipHeight;
+				final int idx = (gz - playerZ + 16) * 32 + gx - playerX + 16;
+				final double rainX = (double) RAIN_X_COORDS[idx] * 0.5D;
+				final double rainY = (double) RAIN_Y_COORDS[idx] * 0.5D;
+				final int h = gx * gx * 3121 + gx * 45238971 + gz * gz * 418711 + gz * 13761;
+
+				final int i = this.count++;
+				this.gridX[i] = gx;
+				this.gridZ[i] = gz;
+				this.hash[i] = h;
+				this.x0[i] = (double) gx - rainX + 0.5D;
+				this.z0[i] = (double) gz - rainY + 0.5D;
+				this.x1[i] = (double) gx + rainX + 0.5D;
+				this.z1[i] = (double) gz + rainY + 0.5D;
+				this.minY[i] = k2;
+				this.maxY[i] = l2;
+
+				this.random.setSeed((long) (gx * gx * 3121 + gx * 45238971 ^ gz * gz * 418711 + gz * 13761));
+				int light = source.getCombinedLight(column, i3);
+
+				if (!hasDust && column.isWarm) {
+					this.type[i] = RAIN;
+					this.randA[i] = this.random.nextDouble();
+					this.red[i] = this.green[i] = this.blue[i] = 1.0F;
+				} else {
+					this.type[i] = hasDust && column.isWarm ? DUST : SNOW;
+					this.randA[i] = this.random.nextDouble();
+					this.randB[i] = (float) this.random.nextGaussian();
+					this.randC[i] = this.random.nextDouble();
+					this.randD[i] = (float) this.random.nextGaussian();
+					light = (light * 3 + 15728880) / 4;
+
+					final Color color = this.tint;
+					color.red = color.green = color.blue = 1.0F;
+					if (isNether) {
+						final Color c = BiomeRegistry.getDustColor(column.biome);
+						if (c != null)
+							color.mix(c);
+					}
+					this.red[i] = color.red;
+					this.green[i] = color.green;
+					this.blue[i] = color.blue;
+				}
+
+				this.lightSky[i] = light >> 16 & 65535;
+				this.lightBlock[i] = light & 65535;
+			}
+		}
+	}
+}
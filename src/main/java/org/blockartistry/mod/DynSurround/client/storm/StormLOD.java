@@ -0,0 +1,163 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.storm;
+
+import org.blockartistry.mod.DynSurround.ModOptions;
+
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Adjusts how much work the storm renderers do based on what the storm
+ * rendering costs. Level 0 is full detail. The renderers report the time
+ * they spend, and only frames where the storm was actually drawn are
+ * looked at. Frame and storm times are smoothed and checked every
+ * EVALUATE_FRAMES storm frames.
+ *
+ * The level drops a step when the frame is over budget and the storm is a
+ * meaningful part of it. It climbs back after several evaluations where
+ * the frame would stay within budget even if the storm cost doubled, which
+ * is about what one level up costs. With vsync on, the frame time sits at
+ * the refresh interval whatever the load, so only the storm's own cost
+ * decides recovery.
+ */
+@SideOnly(Side.CLIENT)
+public final class StormLOD {
+
+	private static final int LEVELS = 4;
+	private static final float[] PARTICLE_SCALE = { 1.0F, 0.75F, 0.5F, 0.25F };
+	private static final float[] SOUND_CHANCE_SCALE = { 1.0F, 1.5F, 2.0F, 3.0F };
+
+	private static final int EVALUATE_FRAMES = 20;
+	private static final int RECOVER_EVALUATIONS = 5;
+	private static final float OVER_BUDGET = 1.1F;
+	private static final float STORM_SHARE = 0.1F;
+	private static final float SMOOTHING = 0.1F;
+
+	private static int level = 0;
+	private static long lastFrameNanos = 0;
+	private static float frameNanos = 0.0F;
+	private static float stormNanos = 0.0F;
+	private static int frames = 0;
+	private static int underBudget = 0;
+
+	// Storm work reported since the last frame started
+	private static long pendingStormNanos = 0;
+	private static boolean stormDrawn = false;
+
+	private StormLOD() {
+	}
+
+	public static void initialize() {
+		MinecraftForge.EVENT_BUS.register(new StormLOD());
+	}
+
+	/*
+	 * Called by the storm renderer after it has drawn.
+	 */
+	public static void recordRender(final long nanos) {
+		pendingStormNanos += nanos;
+		stormDrawn = true;
+	}
+
+	/*
+	 * Called after the splash particles for a tick have been generated.
+	 */
+	public static void recordSplash(final long nanos) {
+		pendingStormNanos += nanos;
+	}
+
+	public static int getLevel() {
+		return ModOptions.rainAdaptiveDetail ? level : 0;
+	}
+
+	/*
+	 * Column radius for the given full detail radius. Steps evenly down
+	 * to the configured minimum at the lowest level.
+	 */
+	public static int getRange(final int maxRange) {
+		final int lod = getLevel();
+		final int minRange = Math.min(ModOptions.rainMinRange, maxRange);
+		return maxRange - (maxRange - minRange) * lod / (LEVELS - 1);
+	}
+
+	public static int getParticleCount(final int count) {
+		return (int) (count * PARTICLE_SCALE[getLevel()]);
+	}
+
+	public static int getSoundChance(final int chance) {
+		return (int) (chance * SOUND_CHANCE_SCALE[getLevel()]);
+	}
+
+	private static void evaluate() {
+		final float limit = 1000000000.0F / ModOptions.rainTargetFPS * OVER_BUDGET;
+
+		if (frameNanos > limit && stormNanos >= frameNanos * STORM_SHARE) {
+			underBudget = 0;
+			if (level < LEVELS - 1)
+				level++;
+		} else if (frameNanos + stormNanos < limit) {
+			if (level > 0 && ++underBudget >= RECOVER_EVALUATIONS) {
+				underBudget = 0;
+				level--;
+			}
+		} else {
+			underBudget = 0;
+		}
+	}
+
+	@SubscribeEvent
+	public void renderTick(final TickEvent.RenderTickEvent event) {
+		if (event.phase != Phase.START || !ModOptions.rainAdaptiveDetail)
+			return;
+
+		final long now = System.nanoTime();
+		if (lastFrameNanos != 0 && stormDrawn) {
+			final long delta = now - lastFrameNanos;
+			// Ignore stalls like loading screens and alt-tab
+			if (delta < 1000000000L) {
+				frameNanos += (delta - frameNanos) * SMOOTHING;
+				stormNanos += (pendingStormNanos - stormNanos) * SMOOTHING;
+				if (++frames >= EVALUATE_FRAMES) {
+					frames = 0;
+					evaluate();
+				}
+			}
+		}
+		lastFrameNanos = now;
+		pendingStormNanos = 0;
+		stormDrawn = false;
+	}
+
+	public static String diagnostic() {
+		if (!ModOptions.rainAdaptiveDetail)
+			return "lod:off";
+		return String.format("lod:%d frame:%.2fms storm:%.2fms", level, frameNanos / 1000000.0F,
+				stormNanos / 1000000.0F);
+	}
+}
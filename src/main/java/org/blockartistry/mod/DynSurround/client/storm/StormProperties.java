@@ -48,7 +48,7 @@ public enum StormProperties {
 	private static float fogDensity = 0.0F;
 		
 	public static void initialize() {
-
+		StormLOD.initialize();
 	}
 
 	private final float level;
@@ -173,6 +173,7 @@ public enum StormProperties {
 		builder.append(" level:").append(intensityLevel);
 		builder.append(" dust:").append(fogDensity);
 		builder.append(" str:").append(EnvironState.getWorld().getRainStrength(1.0F));
+		builder.append(" ").append(StormLOD.diagnostic());
 		return builder.toString();
 	}
 }
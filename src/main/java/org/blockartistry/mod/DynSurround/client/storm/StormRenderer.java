@@ -26,11 +26,7 @@ package org.blockartistry.mod.DynSurround.client.storm;
 
 import org.blockartistry.mod.DynSurround.Module;
 import org.blockartistry.mod.DynSurround.client.IAtmosRenderer;
-import org.blockartistry.mod.DynSurround.client.WeatherUtils;
-import org.blockartistry.mod.DynSurround.data.BiomeRegistry;
 import org.blockartistry.mod.DynSurround.data.DimensionRegistry;
-import org.blockartistry.mod.DynSurround.util.Color;
-import org.blockartistry.mod.DynSurround.util.XorShiftRandom;
 import org.lwjgl.opengl.GL11;
 
 import net.minecraft.client.Minecraft;
@@ -42,10 +38,7 @@ import net.minecraft.client.renderer.VertexBuffer;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.entity.Entity;
 import net.minecraft.util.ResourceLocation;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
-import net.minecraft.world.World;
-import net.minecraft.world.biome.Biome;
 import net.minecraftforge.client.IRenderHandler;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -53,33 +46,13 @@ import net.minecraftforge.fml.relauncher.SideOnly;
 @SideOnly(Side.CLIENT)
 public class StormRenderer extends IAtmosRenderer {
 
-	private static final XorShiftRandom random = new XorShiftRandom();
-
 	public static ResourceLocation locationRainPng = new ResourceLocation("textures/environment/rain.png");
 	public static ResourceLocation locationSnowPng = new ResourceLocation("textures/environment/snow.png");
 	public static ResourceLocation locationDustPng = new ResourceLocation(Module.RESOURCE_ID,
 			"textures/environment/dust.png");
 
-	private static final float[] RAIN_X_COORDS = new float[1024];
-	private static final float[] RAIN_Y_COORDS = new float[1024];
-
-	static {
-		for (int i = 0; i < 32; ++i) {
-			for (int j = 0; j < 32; ++j) {
-				final float f2 = (float) (j - 16);
-				final float f3 = (float) (i - 16);
-				final float f4 = MathHelper.sqrt_float(f2 * f2 + f3 * f3);
-				RAIN_X_COORDS[i << 5 | j] = -f3 / f4;
-				RAIN_Y_COORDS[i << 5 | j] = f2 / f4;
-			}
-		}
-	}
-
-	private static BlockPos getPrecipitationHeight(final World world, final BlockPos pos) {
-		if (world.provider.getDimension() == -1)
-			return new BlockPos(pos.getX(), 0, pos.getZ());
-		return world.getPrecipitationHeight(pos);
-	}
+	// Rebuilt only when the player changes block or the grid changes
+	private static final StormGeometry geometry = new StormGeometry();
 
 	/**
 	 * Render rain and snow
@@ -103,6 +76,8 @@ public class StormRenderer extends IAtmosRenderer {
 		if (rainStrength <= 0.0F)
 			return;
 
+		final long start = System.nanoTime();
+
 		final float alphaRatio;
 		if (StormProperties.getIntensityLevel() > 0.0F)
 			alphaRatio = world.rainingStrength / StormProperties.getIntensityLevel();
@@ -129,144 +104,93 @@ public class StormRenderer extends IAtmosRenderer {
 		final double spawnZ = entity.lastTickPosZ + (entity.posZ - entity.lastTickPosZ) * (double) partialTicks;
 
 		final int locY = MathHelper.floor_double(spawnY);
-		final int range = renderer.mc.gameSettings.fancyGraphics ? 10 : 5;
+		final int range = StormLOD.getRange(renderer.mc.gameSettings.fancyGraphics ? 10 : 5);
 
 		int j1 = -1;
 		float f1 = (float) renderer.rendererUpdateCount + partialTicks;
 		worldrenderer.setTranslation(-spawnX, -spawnY, -spawnZ);
 		GlStateManager.color(1.0F, 1.0F, 1.0F, 1.0F);
-		BlockPos.MutableBlockPos mutable = new BlockPos.MutableBlockPos();
-
-		for (int gridZ = playerZ - range; gridZ <= playerZ + range; ++gridZ) {
-			for (int gridX = playerX - range; gridX <= playerX + range; ++gridX) {
-				final int idx = (gridZ - playerZ + 16) * 32 + gridX - playerX + 16;
-				final double rainX = (double) RAIN_X_COORDS[idx] * 0.5D;
-				final double rainY = (double) RAIN_Y_COORDS[idx] * 0.5D;
-				mutable.setPos(gridX, 0, gridZ);
-				final Biome biome = world.getBiome(mutable);
-				final boolean hasDust = WeatherUtils.biomeHasDust(biome);
-
-				if (hasDust || BiomeRegistry.hasPrecipitation(biome)) {
-					final int precipHeight = getPrecipitationHeight(world, mutable).getY();
-					int k2 = playerY - range;
-					int l2 = playerY + range;
-
-					if (k2 < precipHeight) {
-						k2 = precipHeight;
+		if (!geometry.isCurrent(world, playerX, playerY, playerZ, locY, range))
+			geometry.build(world, playerX, playerY, playerZ, locY, range);
+
+		final double d8 = (double) (((float) (renderer.rendererUpdateCount & 511) + partialTicks) / 512.0F);
+
+		for (int i = 0; i < geometry.getCount(); i++) {
+			final int type = geometry.type[i];
+			final double gridX = (double) ((float) geometry.gridX[i] + 0.5F) - entity.posX;
+			final double gridZ = (double) ((float) geometry.gridZ[i] + 0.5F) - entity.posZ;
+			final float dist = MathHelper.sqrt_double(gridX * gridX + gridZ * gridZ) / (float) range;
+			final int k2 = geometry.minY[i];
+			final int l2 = geometry.maxY[i];
+			final int sky = geometry.lightSky[i];
+			final int block = geometry.lightBlock[i];
+
+			if (type == StormGeometry.RAIN) {
+				if (j1 != 0) {
+					if (j1 >= 0) {
+						tess.draw();
 					}
 
-					if (l2 < precipHeight) {
-						l2 = precipHeight;
-					}
-
-					int i3 = precipHeight;
+					j1 = 0;
+					renderer.mc.getTextureManager().bindTexture(locationRainPng);
+					worldrenderer.begin(GL11.GL_QUADS, DefaultVertexFormats.PARTICLE_POSITION_TEX_COLOR_LMAP);
+				}
 
-					if (precipHeight < locY) {
-						i3 = locY;
+				final double d5 = ((double) (renderer.rendererUpdateCount + geometry.hash[i] & 31)
+						+ (double) partialTicks) / 32.0D * (3.0D + geometry.randA[i]);
+				final float f4 = ((1.0F - dist * dist) * 0.5F + 0.5F) * alphaRatio;
+				worldrenderer.pos(geometry.x0[i], (double) k2, geometry.z0[i])
+						.tex(0.0D, (double) k2 * 0.25D + d5).color(1.0F, 1.0F, 1.0F, f4).lightmap(sky, block)
+						.endVertex();
+				worldrenderer.pos(geometry.x1[i], (double) k2, geometry.z1[i])
+						.tex(1.0D, (double) k2 * 0.25D + d5).color(1.0F, 1.0F, 1.0F, f4).lightmap(sky, block)
+						.endVertex();
+				worldrenderer.pos(geometry.x1[i], (double) l2, geometry.z1[i])
+						.tex(1.0D, (double) l2 * 0.25D + d5).color(1.0F, 1.0F, 1.0F, f4).lightmap(sky, block)
+						.endVertex();
+				worldrenderer.pos(geometry.x0[i], (double) l2, geometry.z0[i])
+						.tex(0.0D, (double) l2 * 0.25D + d5).color(1.0F, 1.0F, 1.0F, f4).lightmap(sky, block)
+						.endVertex();
+			} else {
+				if (j1 != 1) {
+					if (j1 >= 0) {
+						tess.draw();
 					}
 
-					if (k2 != l2) {
-						random.setSeed((long) (gridX * gridX * 3121 + gridX * 45238971
-								^ gridZ * gridZ * 418711 + gridZ * 13761));
-						mutable.setPos(gridX, k2, gridZ);
-						final float biomeTemp = biome.getFloatTemperature(mutable);
-						final float heightTemp = world.getBiomeProvider().getTemperatureAtHeight(biomeTemp,
-								precipHeight);
-
-						if (!hasDust && heightTemp >= 0.15F) {
-							if (j1 != 0) {
-								if (j1 >= 0) {
-									tess.draw();
-								}
-
-								j1 = 0;
-								renderer.mc.getTextureManager().bindTexture(locationRainPng);
-								worldrenderer.begin(GL11.GL_QUADS,
-										DefaultVertexFormats.PARTICLE_POSITION_TEX_COLOR_LMAP);
-							}
-
-							double d5 = ((double) (renderer.rendererUpdateCount + gridX * gridX * 3121
-									+ gridX * 45238971 + gridZ * gridZ * 418711 + gridZ * 13761 & 31)
-									+ (double) partialTicks) / 32.0D * (3.0D + random.nextDouble());
-							double d6 = (double) ((float) gridX + 0.5F) - entity.posX;
-							double d7 = (double) ((float) gridZ + 0.5F) - entity.posZ;
-							float f3 = MathHelper.sqrt_double(d6 * d6 + d7 * d7) / (float) range;
-							float f4 = ((1.0F - f3 * f3) * 0.5F + 0.5F) * alphaRatio;
-							mutable.setPos(gridX, i3, gridZ);
-							int j3 = world.getCombinedLight(mutable, 0);
-							int k3 = j3 >> 16 & 65535;
-							int l3 = j3 & 65535;
-							worldrenderer.pos((double) gridX - rainX + 0.5D, (double) k2, (double) gridZ - rainY + 0.5D)
-									.tex(0.0D, (double) k2 * 0.25D + d5).color(1.0F, 1.0F, 1.0F, f4).lightmap(k3, l3)
-									.endVertex();
-							worldrenderer.pos((double) gridX + rainX + 0.5D, (double) k2, (double) gridZ + rainY + 0.5D)
-									.tex(1.0D, (double) k2 * 0.25D + d5).color(1.0F, 1.0F, 1.0F, f4).lightmap(k3, l3)
-									.endVertex();
-							worldrenderer.pos((double) gridX + rainX + 0.5D, (double) l2, (double) gridZ + rainY + 0.5D)
-									.tex(1.0D, (double) l2 * 0.25D + d5).color(1.0F, 1.0F, 1.0F, f4).lightmap(k3, l3)
-									.endVertex();
-							worldrenderer.pos((double) gridX - rainX + 0.5D, (double) l2, (double) gridZ - rainY + 0.5D)
-									.tex(0.0D, (double) l2 * 0.25D + d5).color(1.0F, 1.0F, 1.0F, f4).lightmap(k3, l3)
-									.endVertex();
-						} else {
-							if (j1 != 1) {
-								if (j1 >= 0) {
-									tess.draw();
-								}
-
-								// If cold enough the dust texture will be
-								// snow that blows sideways
-								ResourceLocation texture = locationSnowPng;
-								if (hasDust && heightTemp >= 0.15F)
-									texture = locationDustPng;
+					// If cold enough the dust texture will be
+					// snow that blows sideways
+					final ResourceLocation texture = type == StormGeometry.DUST ? locationDustPng
+							: locationSnowPng;
 
-								j1 = 1;
-								renderer.mc.getTextureManager().bindTexture(texture);
-								// GL_QUADS == 7
-								worldrenderer.begin(GL11.GL_QUADS,
-										DefaultVertexFormats.PARTICLE_POSITION_TEX_COLOR_LMAP);
-							}
-
-							Color color = new Color(1.0F, 1.0F, 1.0F);
-							if (world.provider.getDimension() == -1) {
-								final Color c = BiomeRegistry.getDustColor(biome);
-								if (color != null)
-									color.mix(c);
-							}
-
-							double d8 = (double) (((float) (renderer.rendererUpdateCount & 511) + partialTicks)
-									/ 512.0F);
-							// The 0.2F factor was originally 0.01F. It
-							// affects the horizontal
-							// movement of particles, which works well for
-							// dust.
-							final float factor = hasDust ? 0.2F : 0.01F;
-							double d9 = random.nextDouble()
-									+ (double) f1 * factor * (double) ((float) random.nextGaussian());
-							double d10 = random.nextDouble() + (double) (f1 * (float) random.nextGaussian()) * 0.001D;
-							double d11 = (double) ((float) gridX + 0.5F) - entity.posX;
-							double d12 = (double) ((float) gridZ + 0.5F) - entity.posZ;
-							float f6 = MathHelper.sqrt_double(d11 * d11 + d12 * d12) / (float) range;
-							float f5 = ((1.0F - f6 * f6) * 0.3F + 0.5F) * alphaRatio;
-							mutable.setPos(gridX, i3, gridZ);
-							int i4 = (world.getCombinedLight(mutable, 0) * 3 + 15728880) / 4;
-							int j4 = i4 >> 16 & 65535;
-							int k4 = i4 & 65535;
-							worldrenderer.pos((double) gridX - rainX + 0.5D, (double) k2, (double) gridZ - rainY + 0.5D)
-									.tex(0.0D + d9, (double) k2 * 0.25D + d8 + d10)
-									.color(color.red, color.green, color.blue, f5).lightmap(j4, k4).endVertex();
-							worldrenderer.pos((double) gridX + rainX + 0.5D, (double) k2, (double) gridZ + rainY + 0.5D)
-									.tex(1.0D + d9, (double) k2 * 0.25D + d8 + d10)
-									.color(color.red, color.green, color.blue, f5).lightmap(j4, k4).endVertex();
-							worldrenderer.pos((double) gridX + rainX + 0.5D, (double) l2, (double) gridZ + rainY + 0.5D)
-									.tex(1.0D + d9, (double) l2 * 0.25D + d8 + d10)
-									.color(color.red, color.green, color.blue, f5).lightmap(j4, k4).endVertex();
-							worldrenderer.pos((double) gridX - rainX + 0.5D, (double) l2, (double) gridZ - rainY + 0.5D)
-									.tex(0.0D + d9, (double) l2 * 0.25D + d8 + d10)
-									.color(color.red, color.green, color.blue, f5).lightmap(j4, k4).endVertex();
-						}
-					}
+					j1 = 1;
+					renderer.mc.getTextureManager().bindTexture(texture);
+					// GL_QUADS == 7
+					worldrenderer.begin(GL11.GL_QUADS, DefaultVertexFormats.PARTICLE_POSITION_TEX_COLOR_LMAP);
 				}
+
+				// The 0.2F factor was originally 0.01F. It
+				// affects the horizontal
+				// movement of particles, which works well for
+				// dust.
+				final float factor = type == StormGeometry.DUST ? 0.2F : 0.01F;
+				final double d9 = geometry.randA[i] + (double) f1 * factor * (double) geometry.randB[i];
+				final double d10 = geometry.randC[i] + (double) (f1 * geometry.randD[i]) * 0.001D;
+				final float f5 = ((1.0F - dist * dist) * 0.3F + 0.5F) * alphaRatio;
+				final float red = geometry.red[i];
+				final float green = geometry.green[i];
+				final float blue = geometry.blue[i];
+				worldrenderer.pos(geometry.x0[i], (double) k2, geometry.z0[i])
+						.tex(0.0D + d9, (double) k2 * 0.25D + d8 + d10).color(red, green, blue, f5)
+						.lightmap(sky, block).endVertex();
+				worldrenderer.pos(geometry.x1[i], (double) k2, geometry.z1[i])
+						.tex(1.0D + d9, (double) k2 * 0.25D + d8 + d10).color(red, green, blue, f5)
+						.lightmap(sky, block).endVertex();
+				worldrenderer.pos(geometry.x1[i], (double) l2, geometry.z1[i])
+						.tex(1.0D + d9, (double) l2 * 0.25D + d8 + d10).color(red, green, blue, f5)
+						.lightmap(sky, block).endVertex();
+				worldrenderer.pos(geometry.x0[i], (double) l2, geometry.z0[i])
+						.tex(0.0D + d9, (double) l2 * 0.25D + d8 + d10).color(red, green, blue, f5)
+						.lightmap(sky, block).endVertex();
 			}
 		}
 
@@ -279,5 +203,7 @@ public class StormRenderer extends IAtmosRenderer {
 		GlStateManager.disableBlend();
 		GlStateManager.alphaFunc(516, 0.1F);
 		renderer.disableLightmap();
+
+		StormLOD.recordRender(System.nanoTime() - start);
 	}
 }
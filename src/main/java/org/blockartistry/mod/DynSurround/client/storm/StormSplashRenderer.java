@@ -27,9 +27,7 @@ package org.blockartistry.mod.DynSurround.client.storm;
 import org.apache.commons.lang3.StringUtils;
 import org.blockartistry.mod.DynSurround.ModOptions;
 import org.blockartistry.mod.DynSurround.client.EnvironStateHandler.EnvironState;
-import org.blockartistry.mod.DynSurround.client.WeatherUtils;
 import org.blockartistry.mod.DynSurround.client.fx.particle.ParticleFactory;
-import org.blockartistry.mod.DynSurround.data.BiomeRegistry;
 import org.blockartistry.mod.DynSurround.data.DimensionRegistry;
 import org.blockartistry.mod.DynSurround.util.XorShiftRandom;
 
@@ -40,6 +38,7 @@ import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.multiplayer.WorldClient;
 import net.minecraft.client.particle.IParticleFactory;
 import net.minecraft.client.particle.Particle;
+import net.minecraft.client.particle.ParticleManager;
 import net.minecraft.client.renderer.EntityRenderer;
 import net.minecraft.entity.Entity;
 import net.minecraft.init.Blocks;
@@ -48,8 +47,8 @@ import net.minecraft.util.SoundCategory;
 import net.minecraft.util.SoundEvent;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
-import net.minecraft.world.biome.Biome;
 import net.minecraft.world.gen.NoiseGeneratorSimplex;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -70,7 +69,9 @@ public class StormSplashRenderer {
 		StormSplashRenderer splash = splashRenderers.get(dimensionId);
 		if (splash == null)
 			splash = DEFAULT;
+		final long start = System.nanoTime();
 		splash.addRainParticles(renderer);
+		StormLOD.recordSplash(System.nanoTime() - start);
 	}
 
 	protected StormSplashRenderer() {
@@ -90,6 +91,9 @@ public class StormSplashRenderer {
 						0.0F, 1.0F);
 	}
 
+	// Shared so spawning a particle doesn't allocate an empty varargs array
+	protected static final int[] NO_PARMS = new int[0];
+
 	protected Particle getBlockParticle(final IBlockState state, final boolean dust, final World world, final double x,
 			final double y, final double z) {
 		IParticleFactory factory = null;
@@ -108,7 +112,7 @@ public class StormSplashRenderer {
 			factory = ParticleFactory.rain;
 		}
 
-		return factory != null ? factory.getEntityFX(0, world, x, y, z, 0, 0, 0) : null;
+		return factory != null ? factory.getEntityFX(0, world, x, y, z, 0, 0, 0, NO_PARMS) : null;
 	}
 
 	protected SoundEvent getBlockSound(final Block block, final boolean hasDust, final World world) {
@@ -119,8 +123,48 @@ public class StormSplashRenderer {
 		return StormProperties.getIntensity().getStormSound();
 	}
 
-	protected BlockPos getPrecipitationHeight(final World world, final int range, final BlockPos pos) {
-		return world.getPrecipitationHeight(pos);
+	/*
+	 * Where sampled splash particles go. The renderer feeds the
+	 * ParticleManager; tests can count them instead.
+	 */
+	interface ParticleSink {
+		void addEffect(final Particle particle);
+	}
+
+	private static final class ManagerSink implements ParticleSink {
+		private ParticleManager manager;
+
+		@Override
+		public void addEffect(final Particle particle) {
+			this.manager.addEffect(particle);
+		}
+	}
+
+	/*
+	 * Positions and sources reused across samples so steady state splashes
+	 * don't allocate. Only touched from the render thread.
+	 */
+	protected static final BlockPos.MutableBlockPos scratch = new BlockPos.MutableBlockPos();
+	private static final BlockPos.MutableBlockPos below = new BlockPos.MutableBlockPos();
+	private static final StormGeometry.GridSource grid = new StormGeometry.GridSource();
+	private static final ManagerSink effects = new ManagerSink();
+
+	// Point the splash sound plays from, picked by sampleSplash()
+	double spawnX;
+	double spawnY;
+	double spawnZ;
+
+	protected int getPrecipitationHeight(final StormGeometry.ColumnSource source, final IBlockAccess blocks,
+			final int range, final int x, final int z) {
+		return source.getColumn(x, z).height;
+	}
+
+	/*
+	 * Height of the sky over the column. Splashes above the player while
+	 * the player is under cover play muffled.
+	 */
+	protected int getSkyHeight(final World world, final int x, final int z) {
+		return PrecipitationGrid.get(world, x, z).height;
 	}
 
 	protected void playSplashSound(final EntityRenderer renderer, final WorldClient world, final Entity player,
@@ -129,9 +173,9 @@ public class StormSplashRenderer {
 		final int theY = MathHelper.floor_double(y);
 		final int theZ = MathHelper.floor_double(z);
 
-		final BlockPos coord = new BlockPos(theX, theY, theZ);
-		final boolean hasDust = WeatherUtils.biomeHasDust(world.getBiome(coord));
-		final Block block = world.getBlockState(coord.down()).getBlock();
+		final boolean hasDust = PrecipitationGrid.get(world, theX, theZ).hasDust;
+		below.setPos(theX, theY - 1, theZ);
+		final Block block = world.getBlockState(below).getBlock();
 		final SoundEvent sound = getBlockSound(block, hasDust, world);
 		if (sound != null) {
 			final float volume = calculateRainSoundVolume(world);
@@ -139,10 +183,10 @@ public class StormSplashRenderer {
 			final int playerX = MathHelper.floor_double(player.posX);
 			final int playerY = MathHelper.floor_double(player.posY);
 			final int playerZ = MathHelper.floor_double(player.posZ);
-			if (y > player.posY + 1.0D
-					&& world.getPrecipitationHeight(new BlockPos(playerX, 0, playerZ)).getY() > playerY)
+			if (y > player.posY + 1.0D && getSkyHeight(world, playerX, playerZ) > playerY)
 				pitch = 0.5F;
-			renderer.mc.theWorld.playSound(coord, sound, SoundCategory.WEATHER, volume, pitch, false);
+			scratch.setPos(theX, theY, theZ);
+			renderer.mc.theWorld.playSound(scratch, sound, SoundCategory.WEATHER, volume, pitch, false);
 		}
 	}
 
@@ -166,50 +210,62 @@ public class StormSplashRenderer {
 		final int playerX = MathHelper.floor_double(entity.posX);
 		final int playerY = MathHelper.floor_double(entity.posY);
 		final int playerZ = MathHelper.floor_double(entity.posZ);
-		double spawnX = 0.0D;
-		double spawnY = 0.0D;
-		double spawnZ = 0.0D;
-		int particlesSpawned = 0;
 
-		int particleCount = (int) (ModOptions.particleCountBase * rainStrengthFactor * rainStrengthFactor);
+		int particleCount = StormLOD
+				.getParticleCount((int) (ModOptions.particleCountBase * rainStrengthFactor * rainStrengthFactor));
 
 		if (theThis.mc.gameSettings.particleSetting == 1)
 			particleCount >>= 1;
 
-		BlockPos.MutableBlockPos posXZ = new BlockPos.MutableBlockPos();
+		grid.setWorld(worldclient);
+		effects.manager = theThis.mc.effectRenderer;
+		final int particlesSpawned = sampleSplash(grid, worldclient, worldclient, effects, playerX, playerY, playerZ,
+				particleCount);
+
+		if (particlesSpawned > 0 && RANDOM.nextInt(StormLOD.getSoundChance(PARTICLE_SOUND_CHANCE)) < theThis.rainSoundCounter++) {
+			theThis.rainSoundCounter = 0;
+			playSplashSound(theThis, worldclient, entity, this.spawnX, this.spawnY, this.spawnZ);
+		}
+	}
+
+	/*
+	 * Picks splash points around the player and hands their particles to
+	 * the sink. Returns how many points qualified; one of them, chosen
+	 * uniformly, is left in spawnX/Y/Z for the splash sound.
+	 */
+	int sampleSplash(final StormGeometry.ColumnSource source, final IBlockAccess blocks, final World world,
+			final ParticleSink sink, final int playerX, final int playerY, final int playerZ,
+			final int particleCount) {
+		int particlesSpawned = 0;
+
 		for (int j1 = 0; j1 < particleCount; ++j1) {
 			final int locX = playerX + RANDOM.nextInt(RANGE) - RANDOM.nextInt(RANGE);
 			final int locZ = playerZ + RANDOM.nextInt(RANGE) - RANDOM.nextInt(RANGE);
-			posXZ.setPos(locX, 0, locZ);
-			final BlockPos precipHeight = getPrecipitationHeight(worldclient, RANGE / 2, posXZ);
-			final Biome biome = worldclient.getBiome(posXZ);
-			final boolean hasDust = WeatherUtils.biomeHasDust(biome);
+			final int precipHeight = getPrecipitationHeight(source, blocks, RANGE / 2, locX, locZ);
+			final PrecipitationGrid.Column column = source.getColumn(locX, locZ);
+			final boolean hasDust = column.hasDust;
 
-			if (precipHeight.getY() <= playerY + RANGE && precipHeight.getY() >= playerY - RANGE && (hasDust
-					|| (BiomeRegistry.hasPrecipitation(biome) && biome.getFloatTemperature(precipHeight) >= 0.15F))) {
+			if (precipHeight <= playerY + RANGE && precipHeight >= playerY - RANGE
+					&& (hasDust || (column.hasPrecipitation && column.isWarm))) {
 
-				final BlockPos pos = precipHeight.down();
-				final IBlockState state = worldclient.getBlockState(precipHeight.down());
-				final Block block = state.getBlock();
+				below.setPos(locX, precipHeight - 1, locZ);
+				final IBlockState state = blocks.getBlockState(below);
 				final double posX = locX + RANDOM.nextFloat();
-				final double posY = precipHeight.getY() + 0.1F - state.getBoundingBox(worldclient, pos).minY;
+				final double posY = precipHeight + 0.1F - state.getBoundingBox(blocks, below).minY;
 				final double posZ = locZ + RANDOM.nextFloat();
 
-				final Particle particle = getBlockParticle(state, hasDust, worldclient, posX, posY, posZ);
+				final Particle particle = getBlockParticle(state, hasDust, world, posX, posY, posZ);
 				if (particle != null)
-					theThis.mc.effectRenderer.addEffect(particle);
+					sink.addEffect(particle);
 
 				if (RANDOM.nextInt(++particlesSpawned) == 0) {
-					spawnX = posX;
-					spawnY = posY;
-					spawnZ = posZ;
+					this.spawnX = posX;
+					this.spawnY = posY;
+					this.spawnZ = posZ;
 				}
 			}
 		}
 
-		if (particlesSpawned > 0 && RANDOM.nextInt(PARTICLE_SOUND_CHANCE) < theThis.rainSoundCounter++) {
-			theThis.rainSoundCounter = 0;
-			playSplashSound(theThis, worldclient, entity, spawnX, spawnY, spawnZ);
-		}
+		return particlesSpawned;
 	}
 }
@@ -30,6 +30,7 @@ import java.util.List;
 import org.blockartistry.mod.DynSurround.data.BiomeRegistry;
 import org.blockartistry.mod.DynSurround.data.BlockRegistry;
 import org.blockartistry.mod.DynSurround.data.DimensionEffectData;
+import org.blockartistry.mod.DynSurround.server.ServerEffectHandler;
 
 import com.google.common.collect.ImmutableList;
 
@@ -55,6 +56,7 @@ public final class CommandRain extends CommandBase {
 		builder.append("; isSurface: ").append(Boolean.toString(world.provider.isSurfaceWorld()));
 		builder.append("; strength: ").append(FORMATTER.format(world.getRainStrength(1.0F) * 100));
 		builder.append("; timer: ").append(FORMATTER.format(minutes)).append(" minutes");
+		builder.append("; ").append(ServerEffectHandler.rainSyncStatus());
 		return builder.toString();
 	}
 
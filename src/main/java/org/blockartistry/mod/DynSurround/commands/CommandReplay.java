@@ -0,0 +1,105 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.commands;
+
+import java.io.File;
+import java.util.List;
+
+import org.blockartistry.mod.DynSurround.Module;
+import org.blockartistry.mod.DynSurround.client.replay.ReplayRecorder;
+
+import com.google.common.collect.ImmutableList;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.TextComponentString;
+import net.minecraft.util.text.TextComponentTranslation;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/*
+ * Client side command to record a replay for the headless ReplayRunner.
+ */
+@SideOnly(Side.CLIENT)
+public final class CommandReplay extends CommandBase {
+
+	private static final List<String> ALIAS = ImmutableList.<String> builder().add("dsr").build();
+
+	@Override
+	public int getRequiredPermissionLevel() {
+		return 0;
+	}
+
+	@Override
+	public boolean checkPermission(final MinecraftServer server, final ICommandSender sender) {
+		return true;
+	}
+
+	@Override
+	public String getCommandName() {
+		return "dsreplay";
+	}
+
+	@Override
+	public List<String> getCommandAliases() {
+		return ALIAS;
+	}
+
+	@Override
+	public String getCommandUsage(final ICommandSender sender) {
+		return "/dsreplay <record [name] | stop>";
+	}
+
+	@Override
+	public void execute(final MinecraftServer server, final ICommandSender sender, final String[] parms)
+			throws CommandException {
+
+		if (parms.length < 1 || parms.length > 2) {
+			sender.addChatMessage(new TextComponentString(getCommandUsage(sender)));
+		} else if ("record".compareToIgnoreCase(parms[0]) == 0) {
+			final String name = parms.length == 2 ? parms[1] : "replay-" + System.currentTimeMillis();
+			// Plain file name only; the replay always lands in the data directory
+			if (name.isEmpty() || name.contains("/") || name.contains("\\") || name.contains(".."))
+				throw new CommandException("msg.ReplayBadName", name);
+			final File file = new File(Module.dataDirectory(), name + ".dsr");
+			try {
+				ReplayRecorder.start(file);
+				sender.addChatMessage(new TextComponentTranslation("msg.ReplayRecording", file.getPath()));
+			} catch (final Exception ex) {
+				ex.printStackTrace();
+				throw new CommandException("msg.ReplayFailed", ex.getMessage());
+			}
+		} else if ("stop".compareToIgnoreCase(parms[0]) == 0) {
+			if (ReplayRecorder.isRecording()) {
+				final File file = ReplayRecorder.getFile();
+				ReplayRecorder.stop();
+				sender.addChatMessage(new TextComponentTranslation("msg.ReplayStopped", file.getPath()));
+			}
+		} else {
+			throw new CommandException(getCommandUsage(sender));
+		}
+	}
+}
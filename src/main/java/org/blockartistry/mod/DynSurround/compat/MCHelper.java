@@ -28,6 +28,7 @@ import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.common.registry.FMLControlledNamespacedRegistry;
 import net.minecraftforge.fml.common.registry.GameData;
@@ -62,7 +63,7 @@ public class MCHelper {
 		return world.isAirBlock(pos);
 	}
 	
-	public static boolean isAirBlock(final IBlockState state, final World world, final BlockPos pos) {
+	public static boolean isAirBlock(final IBlockState state, final IBlockAccess world, final BlockPos pos) {
 		return state.getBlock().isAir(state, world, pos);
 	}
 	
@@ -68,9 +68,16 @@ public final class AuroraData implements INBTSerialization {
 		this.preset = preset;
 	}
 	
+	/*
+	 * Z coordinate that distanceSq() measures from for the given offset.
+	 */
+	public static int getQueryZ(final Entity entity, final int offset) {
+		return (int) entity.posZ - offset;
+	}
+
 	public long distanceSq(final Entity entity, final int offset) {
 		final long deltaX = this.posX - (int) entity.posX;
-		final long deltaZ = this.posZ - (int) entity.posZ + offset;
+		final long deltaZ = this.posZ - getQueryZ(entity, offset);
 		return deltaX * deltaX + deltaZ * deltaZ;
 	}
 
@@ -102,6 +109,13 @@ public final class AuroraData implements INBTSerialization {
 		return (this.dimensionId == a.dimensionId) && (this.posX == a.posX) && (this.posZ == a.posZ);
 	}
 
+	@Override
+	public int hashCode() {
+		int result = this.dimensionId;
+		result = 31 * result + this.posX;
+		return 31 * result + this.posZ;
+	}
+
 	@Override
 	public String toString() {
 		final StringBuilder builder = new StringBuilder();
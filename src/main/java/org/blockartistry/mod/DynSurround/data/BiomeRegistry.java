@@ -85,6 +85,11 @@ public final class BiomeRegistry {
 		public int spotSoundChance;
 		public List<SoundEffect> spotSounds;
 
+		// Built on first lookup once the config has been processed. A
+		// registry reload replaces the entries so the caches go with them.
+		private SoundCandidateCache soundCache;
+		private SoundCandidateCache spotSoundCache;
+
 		public Entry(final Biome biome) {
 			this.biome = biome;
 			this.hasPrecipitation = biome.canRain() || biome.getEnableSnow();
@@ -93,19 +98,23 @@ public final class BiomeRegistry {
 			this.spotSoundChance = 1200;
 		}
 
-		public SoundEffect findSoundMatch(final String conditions) {
+		public SoundEffect findSoundMatch(final String conditions, final long conditionMask) {
 			for (final SoundEffect sound : this.sounds)
-				if (sound.matches(conditions))
+				if (sound.matches(conditions, conditionMask))
 					return sound;
 			return null;
 		}
 
-		public List<SoundEffect> findSoundMatches(final String conditions) {
-			final List<SoundEffect> results = new ArrayList<SoundEffect>();
-			for (final SoundEffect sound : this.sounds)
-				if (sound.matches(conditions))
-					results.add(sound);
-			return results;
+		public List<SoundEffect> findSoundMatches(final String conditions, final long conditionMask) {
+			if (this.soundCache == null)
+				this.soundCache = new SoundCandidateCache(this.sounds);
+			return this.soundCache.get(conditions, conditionMask).sounds;
+		}
+
+		public SoundCandidateCache.Candidates findSpotSoundMatches(final String conditions, final long conditionMask) {
+			if (this.spotSoundCache == null)
+				this.spotSoundCache = new SoundCandidateCache(this.spotSounds);
+			return this.spotSoundCache.get(conditions, conditionMask);
 		}
 
 		@Override
@@ -165,7 +174,7 @@ public final class BiomeRegistry {
 		else return Biome.getIdForBiome(biome);
 	}
 
-	public static void initialize() {
+	private static void registerBiomes() {
 
 		biomeAliases.clear();
 		for (final String entry : ModOptions.biomeAliases) {
@@ -190,7 +199,11 @@ public final class BiomeRegistry {
 		registerBiome(CLOUDS);
 		registerBiome(PLAYER);
 		registerBiome(WTF);
+	}
+
+	public static void initialize() {
 
+		registerBiomes();
 		processConfig();
 
 		if (ModOptions.enableDebugLogging) {
@@ -205,6 +218,17 @@ public final class BiomeRegistry {
 		MinecraftForge.EVENT_BUS.post(new RegistryReloadEvent.Biome());
 	}
 
+	/*
+	 * Builds the registry from a single config without reading the data
+	 * directory, and without posting the reload event. Used by the
+	 * benchmarks.
+	 */
+	public static void initialize(final BiomeConfig config) {
+		registerBiomes();
+		process(config);
+		biomeAliases.clear();
+	}
+
 	private static Entry get(final Biome biome) {
 		Entry entry = registry.get(biome == null ? WTF.BIOME_ID : getBiomeID(biome));
 		if (entry == null) {
@@ -248,38 +272,21 @@ public final class BiomeRegistry {
 		return get(biome).fogDensity;
 	}
 
-	public static SoundEffect getSound(final Biome biome, final String conditions) {
-		return get(biome).findSoundMatch(conditions);
+	public static SoundEffect getSound(final Biome biome, final String conditions, final long conditionMask) {
+		return get(biome).findSoundMatch(conditions, conditionMask);
 	}
 
-	public static List<SoundEffect> getSounds(final Biome biome, final String conditions) {
-		return get(biome).findSoundMatches(conditions);
+	public static List<SoundEffect> getSounds(final Biome biome, final String conditions, final long conditionMask) {
+		return get(biome).findSoundMatches(conditions, conditionMask);
 	}
 
-	public static SoundEffect getSpotSound(final Biome biome, final String conditions, final Random random) {
+	public static SoundEffect getSpotSound(final Biome biome, final String conditions, final long conditionMask,
+			final Random random) {
 		final Entry e = get(biome);
 		if (e == null || e.spotSounds.isEmpty() || random.nextInt(e.spotSoundChance) != 0)
 			return null;
 
-		int totalWeight = 0;
-		final List<SoundEffect> candidates = new ArrayList<SoundEffect>();
-		for (final SoundEffect s : e.spotSounds)
-			if (s.matches(conditions)) {
-				candidates.add(s);
-				totalWeight += s.weight;
-			}
-		if (totalWeight <= 0)
-			return null;
-
-		if (candidates.size() == 1)
-			return candidates.get(0);
-
-		int targetWeight = random.nextInt(totalWeight);
-		int i = 0;
-		for (i = candidates.size(); (targetWeight -= candidates.get(i - 1).weight) >= 0; i--)
-			;
-
-		return candidates.get(i - 1);
+		return e.findSpotSoundMatches(conditions, conditionMask).next(random);
 	}
 
 	private static void processConfig() {
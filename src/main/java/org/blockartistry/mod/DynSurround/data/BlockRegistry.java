@@ -43,17 +43,33 @@ import org.blockartistry.mod.DynSurround.data.config.BlockConfig;
 import org.blockartistry.mod.DynSurround.data.config.BlockConfig.Effect;
 
 import org.blockartistry.mod.DynSurround.data.config.SoundConfig;
+import org.blockartistry.mod.DynSurround.event.RegistryReloadEvent;
 
 import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
 import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.common.Loader;
 import net.minecraftforge.fml.common.ModContainer;
 import net.minecraftforge.fml.common.registry.GameData;
 
 public final class BlockRegistry {
 
+	// Block state IDs are the block ID in the low 12 bits and the metadata
+	// in the upper 4 bits.
+	private static final int STATE_ID_RANGE = 1 << 16;
+
+	private static final int HAS_EFFECTS = 1;
+	private static final int HAS_SOUNDS = 2;
+	private static final int HAS_STEP_SOUNDS = 4;
+
+	private static final BlockEffect[] NO_EFFECTS = {};
+
+	// Used while processing the config files. Once processed the entries
+	// are compiled into the state table which is what gets queried.
 	private static final Map<Block, Entry> registry = new IdentityHashMap<Block, Entry>();
+	private static Record[] states = new Record[STATE_ID_RANGE];
 
 	private static final class Entry {
 		public final Block block;
@@ -63,10 +79,26 @@ public final class BlockRegistry {
 		public final List<SoundEffect> stepSounds = new ArrayList<SoundEffect>();
 		public final List<BlockEffect> effects = new ArrayList<BlockEffect>();
 
+		// Built on first lookup once the config has been processed
+		private SoundCandidateCache soundCache;
+		private SoundCandidateCache stepSoundCache;
+
 		public Entry(final Block block) {
 			this.block = block;
 		}
 
+		public SoundCandidateCache getSoundCache() {
+			if (this.soundCache == null)
+				this.soundCache = new SoundCandidateCache(this.sounds);
+			return this.soundCache;
+		}
+
+		public SoundCandidateCache getStepSoundCache() {
+			if (this.stepSoundCache == null)
+				this.stepSoundCache = new SoundCandidateCache(this.stepSounds);
+			return this.stepSoundCache;
+		}
+
 		@Override
 		public String toString() {
 			final StringBuilder builder = new StringBuilder();
@@ -99,58 +131,112 @@ public final class BlockRegistry {
 		}
 	}
 
+	/*
+	 * Flattened, immutable form of an Entry. One record is shared by all
+	 * the states of a block but the table is keyed by state so that
+	 * metadata specific records can be expressed.
+	 */
+	private static final class Record {
+		public final int flags;
+		public final int chance;
+		public final int stepChance;
+		public final BlockEffect[] effects;
+		public final SoundCandidateCache sounds;
+		public final SoundCandidateCache stepSounds;
+
+		public Record(final Entry entry) {
+			this.chance = entry.chance;
+			this.stepChance = entry.stepChance;
+			this.effects = entry.effects.isEmpty() ? NO_EFFECTS
+					: entry.effects.toArray(new BlockEffect[entry.effects.size()]);
+			this.sounds = entry.sounds.isEmpty() ? null : entry.getSoundCache();
+			this.stepSounds = entry.stepSounds.isEmpty() ? null : entry.getStepSoundCache();
+
+			int f = 0;
+			if (this.effects.length > 0)
+				f |= HAS_EFFECTS;
+			if (this.sounds != null)
+				f |= HAS_SOUNDS;
+			if (this.stepSounds != null)
+				f |= HAS_STEP_SOUNDS;
+			this.flags = f;
+		}
+	}
+
+	private static Record[] compile() {
+		final Record[] table = new Record[STATE_ID_RANGE];
+		for (final Entry entry : registry.values()) {
+			final Record record = new Record(entry);
+			if (record.flags == 0)
+				continue;
+			for (final IBlockState state : entry.block.getBlockState().getValidStates()) {
+				final int id = Block.getStateId(state);
+				if (id >= 0 && id < STATE_ID_RANGE)
+					table[id] = record;
+			}
+		}
+		return table;
+	}
+
+	private static Record get(final IBlockState state) {
+		final int id = Block.getStateId(state);
+		return id >= 0 && id < STATE_ID_RANGE ? states[id] : null;
+	}
+
 	public static void initialize() {
 
 		registry.clear();
 		processConfig();
+		states = compile();
 
 		if (ModOptions.enableDebugLogging) {
 			ModLog.info("*** BLOCK REGISTRY ***");
 			for (final Entry entry : registry.values())
 				ModLog.info(entry.toString());
 		}
-	}
 
-	public static List<BlockEffect> getEffects(final Block block) {
-		final Entry entry = registry.get(block);
-		return entry != null ? entry.effects : null;
+		MinecraftForge.EVENT_BUS.post(new RegistryReloadEvent.Block());
 	}
 
-	private static SoundEffect getRandomSound(final List<SoundEffect> list, final Random random,
-			final String conditions) {
-		int totalWeight = 0;
-		final List<SoundEffect> candidates = new ArrayList<SoundEffect>();
-		for (final SoundEffect s : list)
-			if (s.matches(conditions)) {
-				candidates.add(s);
-				totalWeight += s.weight;
-			}
-		if (totalWeight <= 0)
-			return null;
-
-		if (candidates.size() == 1)
-			return candidates.get(0);
+	/*
+	 * Builds the registry from a single config without the mod and data
+	 * directory scan, and without posting the reload event. Used by the
+	 * benchmarks which have no Forge loader to enumerate.
+	 */
+	public static void initialize(final BlockConfig config) {
+		registry.clear();
+		process(config);
+		states = compile();
+	}
 
-		int targetWeight = random.nextInt(totalWeight);
-		int i = 0;
-		for (i = candidates.size(); (targetWeight -= candidates.get(i - 1).weight) >= 0; i--)
-			;
+	/*
+	 * Indicates whether the block state has any effects or non-step sounds
+	 * registered, and is therefore of interest to the block effect handler.
+	 */
+	public static boolean hasEffectsOrSounds(final IBlockState state) {
+		final Record record = get(state);
+		return record != null && (record.flags & (HAS_EFFECTS | HAS_SOUNDS)) != 0;
+	}
 
-		return candidates.get(i - 1);
+	public static BlockEffect[] getEffects(final IBlockState state) {
+		final Record record = get(state);
+		return record != null ? record.effects : NO_EFFECTS;
 	}
 
-	public static SoundEffect getSound(final Block block, final Random random, final String conditions) {
-		final Entry entry = registry.get(block);
-		if (entry == null || entry.sounds.isEmpty() || random.nextInt(entry.chance) != 0)
+	public static SoundEffect getSound(final IBlockState state, final Random random, final String conditions,
+			final long conditionMask) {
+		final Record record = get(state);
+		if (record == null || record.sounds == null || random.nextInt(record.chance) != 0)
 			return null;
-		return getRandomSound(entry.sounds, random, conditions);
+		return record.sounds.get(conditions, conditionMask).next(random);
 	}
 
-	public static SoundEffect getStepSound(final Block block, final Random random, final String conditions) {
-		final Entry entry = registry.get(block);
-		if (entry == null || entry.stepSounds.isEmpty() || random.nextInt(entry.stepChance) != 0)
+	public static SoundEffect getStepSound(final IBlockState state, final Random random, final String conditions,
+			final long conditionMask) {
+		final Record record = get(state);
+		if (record == null || record.stepSounds == null || random.nextInt(record.stepChance) != 0)
 			return null;
-		return getRandomSound(entry.stepSounds, random, conditions);
+		return record.stepSounds.get(conditions, conditionMask).next(random);
 	}
 
 	private static void processConfig() {
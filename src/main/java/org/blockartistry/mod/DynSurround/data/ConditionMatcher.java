@@ -0,0 +1,142 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.blockartistry.mod.DynSurround.data;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+/*
+ * Compiled form of a sound condition expression. The common forms used
+ * in the configs are lowered into a pair of masks:
+ *
+ * (?i).*                        -> always
+ * (?i).*#token#.*               -> token required
+ * (?i)(?!.*#a#.*|.*#b#.*)(.*)   -> a and b excluded
+ *
+ * plus combinations of the above. Anything else falls back to matching
+ * the regex against the legacy condition string.
+ */
+public final class ConditionMatcher {
+
+	private static final String CASE_INSENSITIVE = "(?i)";
+	private static final String ANY = ".*";
+	private static final String NEGATIVE_START = "(?!";
+	private static final Pattern TOKEN_TERM = Pattern.compile("\\.\\*#(\\w+)#\\.\\*");
+
+	public static final ConditionMatcher ALWAYS = new ConditionMatcher(ANY, null, 0L, 0L);
+
+	public final String expression;
+	private final Pattern pattern;
+	private final long required;
+	private final long excluded;
+
+	private ConditionMatcher(final String expression, final Pattern pattern, final long required,
+			final long excluded) {
+		this.expression = expression;
+		this.pattern = pattern;
+		this.required = required;
+		this.excluded = excluded;
+	}
+
+	public boolean isCompiled() {
+		return this.pattern == null;
+	}
+
+	public boolean matches(final String conditions, final long mask) {
+		if (this.pattern != null)
+			return this.pattern.matcher(conditions).matches();
+		return (mask & this.required) == this.required && (mask & this.excluded) == 0;
+	}
+
+	public static ConditionMatcher compile(final String expression) {
+		if (StringUtils.isEmpty(expression) || ANY.equals(expression))
+			return ALWAYS;
+
+		final long[] masks = lower(expression);
+		if (masks != null)
+			return new ConditionMatcher(expression, null, masks[0], masks[1]);
+		return new ConditionMatcher(expression, Pattern.compile(expression), 0L, 0L);
+	}
+
+	/*
+	 * Attempts to lower the expression into required/excluded masks. Returns
+	 * null if the expression contains something the compiler does not
+	 * understand.
+	 */
+	private static long[] lower(final String expression) {
+		String expr = expression;
+		final boolean caseInsensitive = expr.startsWith(CASE_INSENSITIVE);
+		if (caseInsensitive)
+			expr = expr.substring(CASE_INSENSITIVE.length());
+
+		long excluded = 0L;
+		if (expr.startsWith(NEGATIVE_START)) {
+			final int end = expr.indexOf(')');
+			if (end < 0)
+				return null;
+			for (final String term : StringUtils.split(expr.substring(NEGATIVE_START.length(), end), '|')) {
+				final long mask = lowerTerm(term, caseInsensitive);
+				if (mask == 0L)
+					return null;
+				excluded |= mask;
+			}
+			expr = expr.substring(end + 1);
+		}
+
+		if (expr.length() > 1 && expr.charAt(0) == '(' && expr.charAt(expr.length() - 1) == ')')
+			expr = expr.substring(1, expr.length() - 1);
+
+		long required = 0L;
+		if (!ANY.equals(expr)) {
+			required = lowerTerm(expr, caseInsensitive);
+			if (required == 0L)
+				return null;
+		}
+
+		return new long[] { required, excluded };
+	}
+
+	/*
+	 * Lowers a single ".*#token#.*" term into its token mask. Tokens are
+	 * matched case insensitive so a term is only lowered when the (?i)
+	 * flag is present.
+	 */
+	private static long lowerTerm(final String term, final boolean caseInsensitive) {
+		if (!caseInsensitive)
+			return 0L;
+		final Matcher m = TOKEN_TERM.matcher(term);
+		if (!m.matches())
+			return 0L;
+		final int bit = ConditionTokens.intern(m.group(1));
+		return bit < 0 ? 0L : 1L << bit;
+	}
+
+	@Override
+	public String toString() {
+		return this.expression;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.blockartistry.mod.DynSurround.data;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Interns condition tokens (day, raining, hurt, etc.) into bit positions
+ * so that compiled sound conditions can be evaluated against a simple
+ * long mask rather than running a regex over the condition string.
+ * Only tokens that are referenced by a compiled condition are assigned
+ * a bit - anything else can never influence a compiled match.
+ */
+public final class ConditionTokens {
+
+	public static final int MAX_TOKENS = Long.SIZE;
+	public static final char CONDITION_SEPARATOR = '#';
+
+	// Token matching is case insensitive to mirror the (?i) flag used
+	// in the condition expressions.
+	private static final Map<String, Integer> tokens = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
+
+	private ConditionTokens() {
+	}
+
+	/*
+	 * Returns the bit position assigned to the token, assigning a new
+	 * one if needed. Returns -1 if the token table is full.
+	 */
+	public static int intern(final String token) {
+		final Integer bit = tokens.get(token);
+		if (bit != null)
+			return bit.intValue();
+		if (tokens.size() >= MAX_TOKENS)
+			return -1;
+		final int newBit = tokens.size();
+		tokens.put(token, newBit);
+		return newBit;
+	}
+
+	/*
+	 * Returns the mask for the token, or 0 if the token is not
+	 * referenced by any compiled condition.
+	 */
+	public static long getMask(final String token) {
+		final Integer bit = tokens.get(token);
+		return bit == null ? 0L : 1L << bit.intValue();
+	}
+
+	/*
+	 * Accumulates the legacy "#token#token#" condition string along with
+	 * the equivalent token mask.
+	 */
+	public static final class Builder {
+
+		private final StringBuilder builder = new StringBuilder(128);
+		private long mask;
+
+		public Builder reset() {
+			this.builder.setLength(0);
+			this.mask = 0;
+			return this;
+		}
+
+		public Builder append(final String token) {
+			this.builder.append(CONDITION_SEPARATOR).append(token);
+			this.mask |= ConditionTokens.getMask(token);
+			return this;
+		}
+
+		public Builder terminate() {
+			this.builder.append(CONDITION_SEPARATOR);
+			return this;
+		}
+
+		public long getMask() {
+			return this.mask;
+		}
+
+		@Override
+		public String toString() {
+			return this.builder.toString();
+		}
+	}
+}
@@ -25,6 +25,7 @@
 package org.blockartistry.mod.DynSurround.data;
 
 import java.text.DecimalFormat;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -64,6 +65,10 @@ public final class DimensionEffectData implements INBTSerialization {
 	private float minIntensity = ModOptions.defaultMinRainStrength;
 	private float maxIntensity = ModOptions.defaultMaxRainStrength;
 	private Set<AuroraData> auroras = new HashSet<AuroraData>();
+	private final Set<AuroraData> aurorasView = Collections.unmodifiableSet(this.auroras);
+
+	// Owning save file that needs to be flagged when state changes
+	private DimensionEffectDataFile owner;
 
 	public DimensionEffectData() {
 	}
@@ -72,6 +77,15 @@ public final class DimensionEffectData implements INBTSerialization {
 		this.dimensionId = dimensionId;
 	}
 
+	void setOwner(final DimensionEffectDataFile owner) {
+		this.owner = owner;
+	}
+
+	private void markDirty() {
+		if (this.owner != null)
+			this.owner.markDirty();
+	}
+
 	public int getDimensionId() {
 		return this.dimensionId;
 	}
@@ -81,7 +95,11 @@ public final class DimensionEffectData implements INBTSerialization {
 	}
 
 	public void setRainIntensity(final float intensity) {
-		this.intensity = MathHelper.clamp_float(intensity, MIN_INTENSITY, MAX_INTENSITY);
+		final float value = MathHelper.clamp_float(intensity, MIN_INTENSITY, MAX_INTENSITY);
+		if (value != this.intensity) {
+			this.intensity = value;
+			markDirty();
+		}
 	}
 
 	public float getMinRainIntensity() {
@@ -89,7 +107,11 @@ public final class DimensionEffectData implements INBTSerialization {
 	}
 
 	public void setMinRainIntensity(final float intensity) {
-		this.minIntensity = MathHelper.clamp_float(intensity, MIN_INTENSITY, this.maxIntensity);
+		final float value = MathHelper.clamp_float(intensity, MIN_INTENSITY, this.maxIntensity);
+		if (value != this.minIntensity) {
+			this.minIntensity = value;
+			markDirty();
+		}
 	}
 
 	public float getMaxRainIntensity() {
@@ -97,11 +119,34 @@ public final class DimensionEffectData implements INBTSerialization {
 	}
 
 	public void setMaxRainIntensity(final float intensity) {
-		this.maxIntensity = MathHelper.clamp_float(intensity, this.minIntensity, MAX_INTENSITY);
+		final float value = MathHelper.clamp_float(intensity, this.minIntensity, MAX_INTENSITY);
+		if (value != this.maxIntensity) {
+			this.maxIntensity = value;
+			markDirty();
+		}
 	}
 
+	/**
+	 * Read only view of the active auroras. Use addAurora() and
+	 * clearAuroras() to make changes so the save file is flagged.
+	 */
 	public Set<AuroraData> getAuroraList() {
-		return this.auroras;
+		return this.aurorasView;
+	}
+
+	public boolean addAurora(@Nonnull final AuroraData aurora) {
+		if (this.auroras.add(aurora)) {
+			markDirty();
+			return true;
+		}
+		return false;
+	}
+
+	public void clearAuroras() {
+		if (!this.auroras.isEmpty()) {
+			this.auroras.clear();
+			markDirty();
+		}
 	}
 
 	public void randomizeRain() {
@@ -24,6 +24,9 @@
 
 package org.blockartistry.mod.DynSurround.data;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import javax.annotation.Nonnull;
 
 import org.blockartistry.mod.DynSurround.Module;
@@ -45,6 +48,10 @@ public final class DimensionEffectDataFile extends WorldSavedData {
 
 	private final TIntObjectHashMap<DimensionEffectData> dataList = new TIntObjectHashMap<DimensionEffectData>();
 
+	// Loaded file per world so the MapStorage lookup isn't done every tick.
+	// Weak so an unloaded world doesn't hang around.
+	private static final Map<World, DimensionEffectDataFile> cache = new WeakHashMap<World, DimensionEffectDataFile>();
+
 	public DimensionEffectDataFile() {
 		this(IDENTIFIER);
 	}
@@ -54,12 +61,17 @@ public final class DimensionEffectDataFile extends WorldSavedData {
 	}
 
 	private static DimensionEffectDataFile getFile(@Nonnull final World world) {
-		DimensionEffectDataFile data = (DimensionEffectDataFile) world.loadItemData(DimensionEffectDataFile.class, IDENTIFIER);
+		DimensionEffectDataFile data = cache.get(world);
+		if (data != null)
+			return data;
+
+		data = (DimensionEffectDataFile) world.loadItemData(DimensionEffectDataFile.class, IDENTIFIER);
 		if (data == null) {
 			data = new DimensionEffectDataFile();
 			world.setItemData(IDENTIFIER, data);
+			data.markDirty();
 		}
-		data.markDirty();
+		cache.put(world, data);
 		return data;
 	}
 
@@ -68,7 +80,9 @@ public final class DimensionEffectDataFile extends WorldSavedData {
 		if (data != null)
 			return data;
 		data = new DimensionEffectData(dimensionId);
+		data.setOwner(this);
 		this.dataList.put(dimensionId, data);
+		markDirty();
 		return data;
 	}
 
@@ -83,6 +97,7 @@ public final class DimensionEffectDataFile extends WorldSavedData {
 			final NBTTagCompound tag = list.getCompoundTagAt(i);
 			final DimensionEffectData data = new DimensionEffectData();
 			data.readFromNBT(tag);
+			data.setOwner(this);
 			this.dataList.put(data.getDimensionId(), data);
 		}
 	}
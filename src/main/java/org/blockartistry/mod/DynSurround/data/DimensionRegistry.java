@@ -287,21 +287,21 @@ public final class DimensionRegistry {
 	private static final String CONDITION_TOKEN_RAINING = "raining";
 	private static final String CONDITION_TOKEN_DAY = "day";
 	private static final String CONDITION_TOKEN_NIGHT = "night";
-	private static final char CONDITION_SEPARATOR = '#';
 
 	public static String getConditions(final World world) {
-		final StringBuilder builder = new StringBuilder();
-		builder.append(CONDITION_SEPARATOR);
+		return appendConditions(world, new ConditionTokens.Builder()).toString();
+	}
+
+	public static ConditionTokens.Builder appendConditions(final World world, final ConditionTokens.Builder builder) {
 		if (DiurnalUtils.isDaytime(world))
 			builder.append(CONDITION_TOKEN_DAY);
 		else
 			builder.append(CONDITION_TOKEN_NIGHT);
-		builder.append(CONDITION_SEPARATOR).append(world.provider.getDimensionType());
+		builder.append(String.valueOf(world.provider.getDimensionType()));
 		if (world.getRainStrength(1.0F) > 0.0F)
-			builder.append(CONDITION_SEPARATOR).append(CONDITION_TOKEN_RAINING);
-		builder.append(CONDITION_SEPARATOR).append(getSeason(world));
-		builder.append(CONDITION_SEPARATOR);
-		return builder.toString();
+			builder.append(CONDITION_TOKEN_RAINING);
+		builder.append(getSeason(world));
+		return builder.terminate();
 	}
 
 	@Override
@@ -0,0 +1,119 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.blockartistry.mod.DynSurround.data;
+
+import java.util.List;
+import java.util.Random;
+
+import org.blockartistry.mod.DynSurround.client.sound.SoundEffect;
+import org.blockartistry.mod.DynSurround.util.AliasTable;
+
+import com.google.common.collect.ImmutableList;
+
+/*
+ * Small bounded cache of the sounds in a list that match a given set of
+ * conditions. The conditions only change every few seconds so the
+ * candidate list is reused tick after tick rather than being rebuilt.
+ * If every sound in the list has a compiled condition the cache is keyed
+ * by the condition mask alone, otherwise by the condition string.
+ */
+public final class SoundCandidateCache {
+
+	private static final int CACHE_SIZE = 4;
+
+	public static final class Candidates {
+
+		public final List<SoundEffect> sounds;
+		public final int totalWeight;
+		private final AliasTable<SoundEffect> table;
+
+		private Candidates(final List<SoundEffect> sounds) {
+			this.sounds = sounds;
+			final int[] weights = new int[sounds.size()];
+			int weight = 0;
+			for (int i = 0; i < weights.length; i++) {
+				weights[i] = Math.max(sounds.get(i).weight, 0);
+				weight += weights[i];
+			}
+			this.totalWeight = weight;
+			this.table = weight > 0 ? new AliasTable<SoundEffect>(sounds, weights) : null;
+		}
+
+		public boolean isEmpty() {
+			return this.sounds.isEmpty();
+		}
+
+		/*
+		 * Weighted random pick from the candidates. Returns null if
+		 * there is nothing to pick from.
+		 */
+		public SoundEffect next(final Random random) {
+			if (this.table == null)
+				return null;
+			if (this.sounds.size() == 1)
+				return this.sounds.get(0);
+			return this.table.next(random);
+		}
+	}
+
+	private final List<SoundEffect> source;
+	private final boolean maskOnly;
+
+	private final long[] masks = new long[CACHE_SIZE];
+	private final String[] conditions = new String[CACHE_SIZE];
+	private final Candidates[] candidates = new Candidates[CACHE_SIZE];
+	private int next;
+
+	public SoundCandidateCache(final List<SoundEffect> source) {
+		this.source = source;
+		boolean compiled = true;
+		for (final SoundEffect s : source)
+			if (!s.isConditionCompiled()) {
+				compiled = false;
+				break;
+			}
+		this.maskOnly = compiled;
+	}
+
+	public Candidates get(final String conditions, final long conditionMask) {
+		for (int i = 0; i < CACHE_SIZE; i++) {
+			final Candidates c = this.candidates[i];
+			if (c != null && this.masks[i] == conditionMask
+					&& (this.maskOnly || conditions.equals(this.conditions[i])))
+				return c;
+		}
+
+		final ImmutableList.Builder<SoundEffect> builder = ImmutableList.builder();
+		for (final SoundEffect s : this.source)
+			if (s.matches(conditions, conditionMask))
+				builder.add(s);
+
+		final int slot = this.next;
+		this.next = (this.next + 1) % CACHE_SIZE;
+		this.masks[slot] = conditionMask;
+		this.conditions[slot] = this.maskOnly ? null : conditions;
+		return this.candidates[slot] = new Candidates(builder.build());
+	}
+}
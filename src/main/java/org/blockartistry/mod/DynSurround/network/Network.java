@@ -21,20 +21,67 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-
 package org.blockartistry.mod.DynSurround.network;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.blockartistry.mod.DynSurround.ModLog;
 import org.blockartistry.mod.DynSurround.Module;
 import org.blockartistry.mod.DynSurround.client.DamageEffectHandler.HealthData;
 import org.blockartistry.mod.DynSurround.data.AuroraData;
 
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.MathHelper;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.fml.common.FMLCommonHandler;
+import net.minecraftforge.fml.common.eventhandler.EventPriority;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.PlayerEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
 import net.minecraftforge.fml.common.network.NetworkRegistry;
 import net.minecraftforge.fml.common.network.simpleimpl.SimpleNetworkWrapper;
 import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
 
 public final class Network {
 	
 	private static int discriminator = 0;
+
+	public static final int PROTOCOL_VERSION = 1;
+
+	public static final int FEATURE_RAIN = 1;
+	public static final int FEATURE_AURORA = 2;
+	public static final int FEATURE_POPOFFS = 4;
+
+	/*
+	 * What each connected client reported in its capability handshake.
+	 * Players that never report, like vanilla clients, are not sent
+	 * anything.
+	 */
+	private static final class ClientInfo {
+		public final int protocol;
+		public final int features;
+
+		public ClientInfo(final int protocol, final int features) {
+			this.protocol = protocol;
+			this.features = features;
+		}
+	}
+
+	private static final Map<UUID, ClientInfo> clients = new HashMap<UUID, ClientInfo>();
+
+	/*
+	 * Updates are accumulated per player during the server tick and sent
+	 * as a single PacketEnvironment when the tick ends.
+	 */
+	private static final Map<EntityPlayerMP, PacketEnvironment> outbound = new IdentityHashMap<EntityPlayerMP, PacketEnvironment>();
 	
 	private Network() {
 	}
@@ -43,20 +90,98 @@ public final class Network {
 
 	public static void initialize() {
 		network = NetworkRegistry.INSTANCE.newSimpleChannel(Module.MOD_ID);
-		network.registerMessage(PacketRainIntensity.class, PacketRainIntensity.class, ++discriminator, Side.CLIENT);
-		network.registerMessage(PacketAurora.class, PacketAurora.class, ++discriminator, Side.CLIENT);
-		network.registerMessage(PacketHealthChange.class, PacketHealthChange.class, ++discriminator, Side.CLIENT);
+		network.registerMessage(PacketEnvironment.class, PacketEnvironment.class, ++discriminator, Side.CLIENT);
+		network.registerMessage(PacketClientCapabilities.class, PacketClientCapabilities.class, ++discriminator, Side.SERVER);
+		MinecraftForge.EVENT_BUS.register(new Network());
+	}
+
+	static void setCapabilities(final EntityPlayerMP player, final int protocol, final int features) {
+		clients.put(player.getUniqueID(), new ClientInfo(protocol, features));
+		ModLog.debug(String.format("Client %s protocol %d features %d", player.getName(), protocol, features));
+	}
+
+	/*
+	 * True once the client has completed the capability handshake, whatever
+	 * it reported.
+	 */
+	public static boolean hasReported(final EntityPlayer player) {
+		return clients.containsKey(player.getUniqueID());
+	}
+
+	public static boolean hasFeature(final EntityPlayer player, final int feature) {
+		final ClientInfo info = clients.get(player.getUniqueID());
+		return info != null && info.protocol >= 1 && (info.features & feature) != 0;
+	}
+
+	@SideOnly(Side.CLIENT)
+	public static void sendClientCapabilities() {
+		network.sendToServer(PacketClientCapabilities.create());
+	}
+
+	private static PacketEnvironment getBundle(final EntityPlayerMP player) {
+		PacketEnvironment packet = outbound.get(player);
+		if (packet == null) {
+			packet = new PacketEnvironment();
+			outbound.put(player, packet);
+		}
+		return packet;
+	}
+
+	private static List<EntityPlayerMP> getPlayers() {
+		final MinecraftServer server = FMLCommonHandler.instance().getMinecraftServerInstance();
+		return server.getPlayerList().getPlayerList();
 	}
 
 	public static void sendRainIntensity(final float intensity, final int dimension) {
-		network.sendToDimension(new PacketRainIntensity(intensity, dimension), dimension);
+		for (final EntityPlayerMP player : getPlayers())
+			if (player.dimension == dimension && hasFeature(player, FEATURE_RAIN))
+				getBundle(player).setRainIntensity(intensity, dimension);
+	}
+
+	public static void sendRainIntensity(final EntityPlayerMP player, final float intensity, final int dimension) {
+		if (hasFeature(player, FEATURE_RAIN))
+			getBundle(player).setRainIntensity(intensity, dimension);
 	}
 	
-	public static void sendAurora(final AuroraData data, final int dimension) {
-		network.sendToDimension(new PacketAurora(data), dimension);
+	public static void sendAurora(final EntityPlayerMP player, final AuroraData data) {
+		if (hasFeature(player, FEATURE_AURORA))
+			getBundle(player).addAurora(data);
+	}
+
+	public static void sendAuroraRemove(final EntityPlayerMP player, final AuroraData data) {
+		if (hasFeature(player, FEATURE_AURORA))
+			getBundle(player).removeAurora(data);
+	}
+
+	public static void sendAuroraClear(final EntityPlayerMP player) {
+		if (hasFeature(player, FEATURE_AURORA))
+			getBundle(player).clearAuroras();
+	}
+
+	public static void sendHealthUpdate(final EntityPlayerMP player, final HealthData data) {
+		if (hasFeature(player, FEATURE_POPOFFS))
+			getBundle(player).addHealth(data);
+	}
+
+	@SubscribeEvent
+	public void playerLogout(final PlayerEvent.PlayerLoggedOutEvent event) {
+		clients.remove(event.player.getUniqueID());
 	}
 
-	public static void sendHealthUpdate(final HealthData data, final int dimension) {
-		network.sendToDimension(new PacketHealthChange(data), dimension);
+	// Lowest so that handlers that queue on tick end get in first
+	@SubscribeEvent(priority = EventPriority.LOWEST)
+	public void tickEvent(final TickEvent.ServerTickEvent event) {
+		if (event.phase != Phase.END || outbound.isEmpty())
+			return;
+
+		for (final Map.Entry<EntityPlayerMP, PacketEnvironment> e : outbound.entrySet()) {
+			final EntityPlayerMP player = e.getKey();
+			final PacketEnvironment packet = e.getValue();
+			if (packet.isEmpty())
+				continue;
+			packet.setAnchor(MathHelper.floor_double(player.posX) >> 4, MathHelper.floor_double(player.posZ) >> 4);
+			network.sendTo(packet, player);
+		}
+		outbound.clear();
 	}
 }
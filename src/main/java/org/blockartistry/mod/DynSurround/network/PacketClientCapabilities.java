@@ -0,0 +1,94 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.network;
+
+import org.blockartistry.mod.DynSurround.ModOptions;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+
+/**
+ * Sent by the client when its world loads to tell the server that it has
+ * the mod, which protocol it speaks, and which features it wants data for.
+ */
+public final class PacketClientCapabilities implements IMessage, IMessageHandler<PacketClientCapabilities, IMessage> {
+
+	private boolean supported = true;
+	private int protocol;
+	private int features;
+
+	public PacketClientCapabilities() {
+	}
+
+	public PacketClientCapabilities(final int protocol, final int features) {
+		this.protocol = protocol;
+		this.features = features;
+	}
+
+	/*
+	 * Feature set based on the local configuration.
+	 */
+	public static PacketClientCapabilities create() {
+		int features = Network.FEATURE_RAIN;
+		if (ModOptions.auroraEnable)
+			features |= Network.FEATURE_AURORA;
+		if (ModOptions.enableDamagePopoffs)
+			features |= Network.FEATURE_POPOFFS;
+		return new PacketClientCapabilities(Network.PROTOCOL_VERSION, features);
+	}
+
+	@Override
+	public void fromBytes(final ByteBuf buf) {
+		if (!(this.supported = PacketCodec.readVersion(buf)))
+			return;
+		this.protocol = PacketCodec.readVarInt(buf);
+		this.features = PacketCodec.readVarInt(buf);
+	}
+
+	@Override
+	public void toBytes(final ByteBuf buf) {
+		PacketCodec.writeVersion(buf);
+		PacketCodec.writeVarInt(buf, this.protocol);
+		PacketCodec.writeVarInt(buf, this.features);
+	}
+
+	@Override
+	public IMessage onMessage(final PacketClientCapabilities message, final MessageContext ctx) {
+		if (!message.supported)
+			return null;
+
+		// Arrives on the network thread so hand off to the server thread
+		final EntityPlayerMP player = ctx.getServerHandler().playerEntity;
+		player.getServerWorld().addScheduledTask(new Runnable() {
+			@Override
+			public void run() {
+				Network.setCapabilities(player, message.protocol, message.features);
+			}
+		});
+		return null;
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.util.math.MathHelper;
+
+/**
+ * Shared encoding helpers for the mod packets. Every packet starts with a
+ * version byte so a client can ignore payloads written by a newer server
+ * instead of misreading them. Integers are written as variable length
+ * quantities and positions are quantized to a fraction of a block relative
+ * to a chunk anchor carried in the packet.
+ */
+public final class PacketCodec {
+
+	public static final int VERSION = 1;
+
+	// Positions are quantized to 1/8 of a block
+	private static final float POSITION_SCALE = 8.0F;
+
+	private PacketCodec() {
+	}
+
+	public static void writeVersion(final ByteBuf buf) {
+		buf.writeByte(VERSION);
+	}
+
+	/**
+	 * Reads the version byte. If the packet was written by a newer codec
+	 * the remaining bytes are skipped and false is returned.
+	 */
+	public static boolean readVersion(final ByteBuf buf) {
+		final int version = buf.readUnsignedByte();
+		if (version > VERSION) {
+			buf.skipBytes(buf.readableBytes());
+			return false;
+		}
+		return true;
+	}
+
+	public static void writeVarInt(final ByteBuf buf, int value) {
+		while ((value & ~0x7F) != 0) {
+			buf.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buf.writeByte(value);
+	}
+
+	public static int readVarInt(final ByteBuf buf) {
+		int result = 0;
+		int shift = 0;
+		byte b;
+		do {
+			if (shift >= 35)
+				throw new IllegalStateException("VarInt too long");
+			b = buf.readByte();
+			result |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return result;
+	}
+
+	/*
+	 * Zig-zag mapping so small negative numbers stay short.
+	 */
+	public static void writeSignedVarInt(final ByteBuf buf, final int value) {
+		writeVarInt(buf, (value << 1) ^ (value >> 31));
+	}
+
+	public static int readSignedVarInt(final ByteBuf buf) {
+		final int raw = readVarInt(buf);
+		return (raw >>> 1) ^ -(raw & 1);
+	}
+
+	public static int quantize(final float value) {
+		return MathHelper.floor_float(value * POSITION_SCALE + 0.5F);
+	}
+
+	public static float dequantize(final int value) {
+		return value / POSITION_SCALE;
+	}
+
+	/**
+	 * Writes a horizontal coordinate relative to the block origin of the
+	 * anchor chunk.
+	 */
+	public static void writeRelative(final ByteBuf buf, final float value, final int anchorChunk) {
+		writeSignedVarInt(buf, quantize(value - (anchorChunk << 4)));
+	}
+
+	public static float readRelative(final ByteBuf buf, final int anchorChunk) {
+		return dequantize(readSignedVarInt(buf)) + (anchorChunk << 4);
+	}
+
+	public static void writePosition(final ByteBuf buf, final float value) {
+		writeSignedVarInt(buf, quantize(value));
+	}
+
+	public static float readPosition(final ByteBuf buf) {
+		return dequantize(readSignedVarInt(buf));
+	}
+}
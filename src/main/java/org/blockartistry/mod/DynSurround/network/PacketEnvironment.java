@@ -0,0 +1,251 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.blockartistry.mod.DynSurround.client.AuroraEffectHandler;
+import org.blockartistry.mod.DynSurround.client.DamageEffectHandler;
+import org.blockartistry.mod.DynSurround.client.DamageEffectHandler.HealthData;
+import org.blockartistry.mod.DynSurround.client.storm.StormProperties;
+import org.blockartistry.mod.DynSurround.data.AuroraData;
+import org.blockartistry.mod.DynSurround.util.PlayerUtils;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+
+/**
+ * All of the environment updates a player receives in a server tick
+ * bundled into a single message. The frame is a version byte, a section
+ * mask, and then each section that is present in mask order.
+ */
+public final class PacketEnvironment implements IMessage, IMessageHandler<PacketEnvironment, IMessage> {
+
+	private static final int SECTION_RAIN = 1;
+	private static final int SECTION_AURORA = 2;
+	private static final int SECTION_HEALTH = 4;
+	private static final int SECTION_AURORA_REMOVE = 8;
+	private static final int SECTION_AURORA_CLEAR = 16;
+
+	private static final int FLAG_CRITICAL = 1;
+
+	// Intensity is sent in thousandths
+	private static final float INTENSITY_SCALE = 1000.0F;
+
+	private boolean supported = true;
+
+	private boolean hasRain;
+	private float intensity;
+	private int rainDimension;
+
+	private boolean clearAuroras;
+	private final List<AuroraData> auroras = new ArrayList<AuroraData>();
+	private final List<AuroraData> removedAuroras = new ArrayList<AuroraData>();
+
+	/*
+	 * Horizontal positions of the health section are relative to the chunk
+	 * the receiving player was in when the packet was framed.
+	 */
+	private int anchorX;
+	private int anchorZ;
+	private final List<HealthData> health = new ArrayList<HealthData>();
+
+	public PacketEnvironment() {
+	}
+
+	public void setRainIntensity(final float intensity, final int dimension) {
+		this.hasRain = true;
+		this.intensity = intensity;
+		this.rainDimension = dimension;
+	}
+
+	public void addAurora(final AuroraData data) {
+		this.auroras.add(data);
+	}
+
+	public void removeAurora(final AuroraData data) {
+		this.auroras.remove(data);
+		this.removedAuroras.add(data);
+	}
+
+	public void clearAuroras() {
+		this.auroras.clear();
+		this.removedAuroras.clear();
+		this.clearAuroras = true;
+	}
+
+	public void addHealth(final HealthData data) {
+		this.health.add(data);
+	}
+
+	public void setAnchor(final int chunkX, final int chunkZ) {
+		this.anchorX = chunkX;
+		this.anchorZ = chunkZ;
+	}
+
+	public boolean isEmpty() {
+		return !this.hasRain && !this.clearAuroras && this.auroras.isEmpty() && this.removedAuroras.isEmpty()
+				&& this.health.isEmpty();
+	}
+
+	@Override
+	public void fromBytes(final ByteBuf buf) {
+		if (!(this.supported = PacketCodec.readVersion(buf)))
+			return;
+
+		final int mask = buf.readUnsignedByte();
+
+		if ((mask & SECTION_RAIN) != 0) {
+			this.hasRain = true;
+			this.intensity = PacketCodec.readSignedVarInt(buf) / INTENSITY_SCALE;
+			this.rainDimension = PacketCodec.readSignedVarInt(buf);
+		}
+
+		if ((mask & SECTION_AURORA) != 0) {
+			final int count = PacketCodec.readVarInt(buf);
+			for (int i = 0; i < count; i++) {
+				final int dimension = PacketCodec.readSignedVarInt(buf);
+				final long seed = buf.readLong();
+				final int posX = PacketCodec.readSignedVarInt(buf);
+				final int posZ = PacketCodec.readSignedVarInt(buf);
+				final int colorSet = buf.readByte();
+				final int preset = buf.readByte();
+				this.auroras.add(new AuroraData(dimension, posX, posZ, seed, colorSet, preset));
+			}
+		}
+
+		if ((mask & SECTION_AURORA_REMOVE) != 0) {
+			final int count = PacketCodec.readVarInt(buf);
+			for (int i = 0; i < count; i++) {
+				final int dimension = PacketCodec.readSignedVarInt(buf);
+				final int posX = PacketCodec.readSignedVarInt(buf);
+				final int posZ = PacketCodec.readSignedVarInt(buf);
+				this.removedAuroras.add(new AuroraData(dimension, posX, posZ, 0, 0, 0));
+			}
+		}
+
+		this.clearAuroras = (mask & SECTION_AURORA_CLEAR) != 0;
+
+		if ((mask & SECTION_HEALTH) != 0) {
+			this.anchorX = PacketCodec.readSignedVarInt(buf);
+			this.anchorZ = PacketCodec.readSignedVarInt(buf);
+			final int count = PacketCodec.readVarInt(buf);
+			for (int i = 0; i < count; i++) {
+				final int entityId = PacketCodec.readVarInt(buf);
+				final float posX = PacketCodec.readRelative(buf, this.anchorX);
+				final float posY = PacketCodec.readPosition(buf);
+				final float posZ = PacketCodec.readRelative(buf, this.anchorZ);
+				final int flags = buf.readUnsignedByte();
+				final int amount = PacketCodec.readSignedVarInt(buf);
+				this.health.add(new HealthData(entityId, posX, posY, posZ, (flags & FLAG_CRITICAL) != 0, amount));
+			}
+		}
+	}
+
+	@Override
+	public void toBytes(final ByteBuf buf) {
+		PacketCodec.writeVersion(buf);
+
+		int mask = 0;
+		if (this.hasRain)
+			mask |= SECTION_RAIN;
+		if (!this.auroras.isEmpty())
+			mask |= SECTION_AURORA;
+		if (!this.health.isEmpty())
+			mask |= SECTION_HEALTH;
+		if (!this.removedAuroras.isEmpty())
+			mask |= SECTION_AURORA_REMOVE;
+		if (this.clearAuroras)
+			mask |= SECTION_AURORA_CLEAR;
+		buf.writeByte(mask);
+
+		if (this.hasRain) {
+			PacketCodec.writeSignedVarInt(buf, Math.round(this.intensity * INTENSITY_SCALE));
+			PacketCodec.writeSignedVarInt(buf, this.rainDimension);
+		}
+
+		if (!this.auroras.isEmpty()) {
+			PacketCodec.writeVarInt(buf, this.auroras.size());
+			for (final AuroraData data : this.auroras) {
+				PacketCodec.writeSignedVarInt(buf, data.dimensionId);
+				buf.writeLong(data.seed);
+				PacketCodec.writeSignedVarInt(buf, data.posX);
+				PacketCodec.writeSignedVarInt(buf, data.posZ);
+				buf.writeByte(data.colorSet);
+				buf.writeByte(data.preset);
+			}
+		}
+
+		if (!this.removedAuroras.isEmpty()) {
+			PacketCodec.writeVarInt(buf, this.removedAuroras.size());
+			for (final AuroraData data : this.removedAuroras) {
+				PacketCodec.writeSignedVarInt(buf, data.dimensionId);
+				PacketCodec.writeSignedVarInt(buf, data.posX);
+				PacketCodec.writeSignedVarInt(buf, data.posZ);
+			}
+		}
+
+		if (!this.health.isEmpty()) {
+			PacketCodec.writeSignedVarInt(buf, this.anchorX);
+			PacketCodec.writeSignedVarInt(buf, this.anchorZ);
+			PacketCodec.writeVarInt(buf, this.health.size());
+			for (final HealthData d : this.health) {
+				PacketCodec.writeVarInt(buf, d.entityId);
+				PacketCodec.writeRelative(buf, d.posX, this.anchorX);
+				PacketCodec.writePosition(buf, d.posY);
+				PacketCodec.writeRelative(buf, d.posZ, this.anchorZ);
+				buf.writeByte(d.isCritical ? FLAG_CRITICAL : 0);
+				PacketCodec.writeSignedVarInt(buf, d.amount);
+			}
+		}
+	}
+
+	@Override
+	public IMessage onMessage(final PacketEnvironment message, final MessageContext ctx) {
+		if (!message.supported)
+			return null;
+
+		// If the player is in the dimension set the intensity. Otherwise
+		// ignore.
+		if (message.hasRain && message.rainDimension == PlayerUtils.getClientPlayerDimension())
+			StormProperties.setIntensity(message.intensity);
+
+		// A clear is applied before removals and additions so that auroras
+		// added after the clear in the same tick survive.
+		if (message.clearAuroras)
+			AuroraEffectHandler.clearAuroras();
+		for (final AuroraData data : message.removedAuroras)
+			AuroraEffectHandler.removeAurora(data);
+		for (final AuroraData data : message.auroras)
+			AuroraEffectHandler.addAurora(data);
+
+		for (final HealthData data : message.health)
+			DamageEffectHandler.handleEvent(data);
+
+		return null;
+	}
+}
@@ -37,12 +37,15 @@ import org.blockartistry.mod.DynSurround.client.fx.particle.ParticleRainOverride
 import org.blockartistry.mod.DynSurround.client.hud.GuiHUDHandler;
 import org.blockartistry.mod.DynSurround.client.sound.SoundManager;
 import org.blockartistry.mod.DynSurround.client.storm.StormProperties;
+import org.blockartistry.mod.DynSurround.commands.CommandReplay;
+import org.blockartistry.mod.DynSurround.commands.CommandTimings;
 import org.blockartistry.mod.DynSurround.data.BlockRegistry;
 import org.blockartistry.mod.DynSurround.data.SoundRegistry;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.audio.SoundHandler;
 import net.minecraft.util.EnumParticleTypes;
+import net.minecraftforge.client.ClientCommandHandler;
 import net.minecraftforge.fml.common.event.FMLInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPostInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
@@ -71,6 +74,9 @@ public class ProxyClient extends Proxy {
 		GuiHUDHandler.initialize();
 		SoundRegistry.initialize();
 
+		ClientCommandHandler.instance.registerCommand(new CommandTimings());
+		ClientCommandHandler.instance.registerCommand(new CommandReplay());
+
 		// Particle Overrides, don't know where it should be
 		Minecraft.getMinecraft().effectRenderer.registerParticle(
 				EnumParticleTypes.WATER_DROP.getParticleID(), new ParticleRainOverride.Factory());
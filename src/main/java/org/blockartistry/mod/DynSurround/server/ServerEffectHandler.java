@@ -24,8 +24,15 @@
 
 package org.blockartistry.mod.DynSurround.server;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import org.blockartistry.mod.DynSurround.ModLog;
 import org.blockartistry.mod.DynSurround.ModOptions;
@@ -41,13 +48,20 @@ import org.blockartistry.mod.DynSurround.util.PlayerUtils;
 import org.blockartistry.mod.DynSurround.util.WorldUtils;
 import org.blockartistry.mod.DynSurround.world.WorldProviderWeatherHandle;
 
+import gnu.trove.map.hash.TIntFloatHashMap;
 import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.eventhandler.EventPriority;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.PlayerEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
 
@@ -56,7 +70,8 @@ public final class ServerEffectHandler {
 	private static final float RESET = -10.0F;
 
 	// Minimum distance between auroras, squared
-	private static final long MIN_AURORA_DISTANCE_SQ = 400 * 400;
+	private static final int MIN_AURORA_DISTANCE = 400;
+	private static final long MIN_AURORA_DISTANCE_SQ = MIN_AURORA_DISTANCE * MIN_AURORA_DISTANCE;
 
 	public static void initialize() {
 		MinecraftForge.EVENT_BUS.register(new ServerEffectHandler());
@@ -76,6 +91,35 @@ public final class ServerEffectHandler {
 		}
 	}
 
+	/*
+	 * Rain intensity is only sent to a dimension when it changes, with a
+	 * periodic resend in case a client missed an update. Players that log
+	 * in or change dimension get the current value directly after a short
+	 * delay so that their client world is in place to receive it. Clients
+	 * that report no rain support, or that have not completed the handshake
+	 * by the timeout (vanilla clients never do), are dropped from the
+	 * pending list.
+	 */
+	private static final float RAIN_EPSILON = 0.001F;
+	private static final int RAIN_KEEPALIVE_TICKS = 30 * 20;
+	private static final int RAIN_JOIN_DELAY_TICKS = 20;
+	private static final int RAIN_HANDSHAKE_TIMEOUT_TICKS = 30 * 20;
+
+	private static final TIntFloatHashMap lastRainSent = new TIntFloatHashMap(8, 0.5F, 0, Float.NaN);
+	private static final TIntIntHashMap rainKeepalive = new TIntIntHashMap();
+	private static final TObjectIntHashMap<UUID> pendingRainSync = new TObjectIntHashMap<UUID>();
+
+	private static long rainTicks = 0;
+	private static long rainPacketsSent = 0;
+
+	public static String rainSyncStatus() {
+		return String.format("rain sync: %d sent over %d dimension ticks", rainPacketsSent, rainTicks);
+	}
+
+	private static float getRainIntensity(final World world) {
+		return DimensionRegistry.hasWeather(world) ? DimensionEffectData.get(world).getRainIntensity() : RESET;
+	}
+
 	@SubscribeEvent
 	public void tickEvent(final TickEvent.WorldTickEvent event) {
 
@@ -87,21 +131,135 @@ public final class ServerEffectHandler {
 
 		final World world = event.world;
 		final int dimensionId = world.provider.getDimension();
-		final float sendIntensity = DimensionRegistry.hasWeather(world) ? DimensionEffectData.get(world).getRainIntensity()
-				: RESET;
+		final float sendIntensity = getRainIntensity(world);
+		rainTicks++;
 
 		// Set the rain intensity for all players in the current
-		// dimension.
-		Network.sendRainIntensity(sendIntensity, dimensionId);
+		// dimension if it changed or the keepalive expired.
+		final float last = lastRainSent.get(dimensionId);
+		final int keepalive = rainKeepalive.adjustOrPutValue(dimensionId, 1, 1);
+		if (Float.isNaN(last) || Math.abs(sendIntensity - last) > RAIN_EPSILON || keepalive >= RAIN_KEEPALIVE_TICKS) {
+			Network.sendRainIntensity(sendIntensity, dimensionId);
+			lastRainSent.put(dimensionId, sendIntensity);
+			rainKeepalive.put(dimensionId, 0);
+			rainPacketsSent++;
+		}
+
+		if (!pendingRainSync.isEmpty()) {
+			for (final EntityPlayer player : world.playerEntities) {
+				final UUID id = player.getUniqueID();
+				if (!pendingRainSync.containsKey(id))
+					continue;
+
+				final int remaining = pendingRainSync.adjustOrPutValue(id, -1, 0);
+				if (Network.hasFeature(player, Network.FEATURE_RAIN)) {
+					if (remaining <= 0) {
+						pendingRainSync.remove(id);
+						Network.sendRainIntensity((EntityPlayerMP) player, sendIntensity, dimensionId);
+						rainPacketsSent++;
+					}
+				} else if (Network.hasReported(player) || remaining <= -RAIN_HANDSHAKE_TIMEOUT_TICKS) {
+					// Known not to want rain, or never going to say
+					pendingRainSync.remove(id);
+				}
+			}
+		}
 	}
 
-	private static boolean isAuroraInRange(final EntityPlayerMP player, final Set<AuroraData> data) {
-		for (final AuroraData aurora : data) {
-			if (aurora.distanceSq(player, -ModOptions.auroraSpawnOffset) <= MIN_AURORA_DISTANCE_SQ)
-				return true;
+	@SubscribeEvent
+	public void playerLogin(final PlayerEvent.PlayerLoggedInEvent event) {
+		if (event.player instanceof EntityPlayerMP)
+			pendingRainSync.put(event.player.getUniqueID(), RAIN_JOIN_DELAY_TICKS);
+		auroraSubscriptions.remove(event.player.getUniqueID());
+	}
+
+	@SubscribeEvent
+	public void playerChangedDimension(final PlayerEvent.PlayerChangedDimensionEvent event) {
+		if (event.player instanceof EntityPlayerMP)
+			pendingRainSync.put(event.player.getUniqueID(), RAIN_JOIN_DELAY_TICKS);
+		auroraSubscriptions.remove(event.player.getUniqueID());
+	}
+
+	@SubscribeEvent
+	public void playerLogout(final PlayerEvent.PlayerLoggedOutEvent event) {
+		pendingRainSync.remove(event.player.getUniqueID());
+		auroraSubscriptions.remove(event.player.getUniqueID());
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(final WorldEvent.Unload e) {
+		final int dimensionId = e.getWorld().provider.getDimension();
+		lastRainSent.remove(dimensionId);
+		rainKeepalive.remove(dimensionId);
+	}
+
+	/*
+	 * Coarse grid of auroras for the proximity check. Cells are the size of
+	 * the minimum distance so only the 3x3 cells around a point need to be
+	 * examined.
+	 */
+	private static final class AuroraGrid {
+
+		private final TLongObjectHashMap<List<AuroraData>> cells = new TLongObjectHashMap<List<AuroraData>>();
+
+		public AuroraGrid(final Collection<AuroraData> data) {
+			for (final AuroraData aurora : data)
+				add(aurora);
+		}
+
+		private static int cell(final int coord) {
+			return MathHelper.floor_double(coord / (double) MIN_AURORA_DISTANCE);
+		}
+
+		private static long key(final int cellX, final int cellZ) {
+			return ChunkPos.chunkXZ2Int(cellX, cellZ);
+		}
+
+		public void add(final AuroraData aurora) {
+			final long key = key(cell(aurora.posX), cell(aurora.posZ));
+			List<AuroraData> list = this.cells.get(key);
+			if (list == null) {
+				list = new ArrayList<AuroraData>(2);
+				this.cells.put(key, list);
+			}
+			list.add(aurora);
 		}
 
-		return false;
+		/*
+		 * Gathers the auroras whose position is within the given distance of
+		 * the player.
+		 */
+		public void collect(final EntityPlayer player, final int distance, final List<AuroraData> result) {
+			final long distanceSq = (long) distance * distance;
+			final int cellX = cell((int) player.posX);
+			final int cellZ = cell((int) player.posZ);
+			final int radius = distance / MIN_AURORA_DISTANCE + 1;
+			for (int dx = -radius; dx <= radius; dx++)
+				for (int dz = -radius; dz <= radius; dz++) {
+					final List<AuroraData> list = this.cells.get(key(cellX + dx, cellZ + dz));
+					if (list != null)
+						for (final AuroraData aurora : list)
+							if (aurora.distanceSq(player, 0) <= distanceSq)
+								result.add(aurora);
+				}
+		}
+
+		public boolean isInRange(final EntityPlayer player) {
+			// Center the lookup on the same point distanceSq() measures
+			// from so no aurora within range falls outside the 3x3 cells
+			final int offset = -ModOptions.auroraSpawnOffset;
+			final int cellX = cell((int) player.posX);
+			final int cellZ = cell(AuroraData.getQueryZ(player, offset));
+			for (int dx = -1; dx <= 1; dx++)
+				for (int dz = -1; dz <= 1; dz++) {
+					final List<AuroraData> list = this.cells.get(key(cellX + dx, cellZ + dz));
+					if (list != null)
+						for (final AuroraData aurora : list)
+							if (aurora.distanceSq(player, offset) <= MIN_AURORA_DISTANCE_SQ)
+								return true;
+				}
+			return false;
+		}
 	}
 
 	/*
@@ -121,22 +279,23 @@ public final class ServerEffectHandler {
 		if (world == null || !DimensionRegistry.hasAuroras(world))
 			return;
 
-		final Set<AuroraData> data = DimensionEffectData.get(world).getAuroraList();
+		final DimensionEffectData effectData = DimensionEffectData.get(world);
+		final Set<AuroraData> data = effectData.getAuroraList();
 
 		// Daylight hours clear the aurora list
 		if (DiurnalUtils.isDaytime(world)) {
-			data.clear();
+			effectData.clearAuroras();
+			releaseAuroras(world);
 		} else {
 			final int tickCount = tickCounters.get(world.provider.getDimension()) + 1;
 			tickCounters.put(world.provider.getDimension(), tickCount);
 			if (tickCount % CHECK_INTERVAL == 0) {
+				final AuroraGrid grid = new AuroraGrid(data);
 				if (okToSpawnAurora(world)) {
-					final List<EntityPlayerMP> players = event.world.getMinecraftServer().getPlayerList().getPlayerList();
-
-					for (final EntityPlayerMP player : players) {
+					for (final EntityPlayer player : world.playerEntities) {
 						if (!BiomeRegistry.hasAurora(PlayerUtils.getPlayerBiome(player, false)))
 							continue;
-						if (isAuroraInRange(player, data))
+						if (grid.isInRange(player))
 							continue;
 
 						final int colorSet = ColorPair.randomId();
@@ -144,16 +303,71 @@ public final class ServerEffectHandler {
 						// final int colorSet = ColorPair.testId();
 						// final int preset = AuroraPreset.testId();
 						final AuroraData aurora = new AuroraData(player, -ModOptions.auroraSpawnOffset, colorSet, preset);
-						if (data.add(aurora)) {
+						if (effectData.addAurora(aurora)) {
+							grid.add(aurora);
 							ModLog.debug("Spawned new aurora: " + aurora.toString());
 						}
 					}
 				}
 
-				for (final AuroraData a : data) {
-					Network.sendAurora(a, world.provider.getDimension());
+				updateSubscriptions(world, data, grid);
+			}
+		}
+	}
+
+	/*
+	 * Auroras a player has been sent. An aurora is sent once when it comes
+	 * within the interest distance of the player, and a removal is sent when
+	 * it goes out past the release distance or no longer exists. The gap
+	 * between the two keeps a player at the edge from flip-flopping.
+	 */
+	private static final int AURORA_INTEREST_DISTANCE = 512;
+	private static final int AURORA_RELEASE_DISTANCE = 640;
+	private static final long AURORA_RELEASE_DISTANCE_SQ = (long) AURORA_RELEASE_DISTANCE * AURORA_RELEASE_DISTANCE;
+
+	private static final Map<UUID, Set<AuroraData>> auroraSubscriptions = new HashMap<UUID, Set<AuroraData>>();
+
+	private static Set<AuroraData> getSubscriptions(final EntityPlayer player) {
+		Set<AuroraData> subs = auroraSubscriptions.get(player.getUniqueID());
+		if (subs == null) {
+			subs = new HashSet<AuroraData>();
+			auroraSubscriptions.put(player.getUniqueID(), subs);
+		}
+		return subs;
+	}
+
+	private static void updateSubscriptions(final World world, final Set<AuroraData> data, final AuroraGrid grid) {
+		final List<AuroraData> nearby = new ArrayList<AuroraData>();
+		for (final EntityPlayer p : world.playerEntities) {
+			if (!Network.hasFeature(p, Network.FEATURE_AURORA))
+				continue;
+			final EntityPlayerMP player = (EntityPlayerMP) p;
+			final Set<AuroraData> subs = getSubscriptions(player);
+
+			final Iterator<AuroraData> itr = subs.iterator();
+			while (itr.hasNext()) {
+				final AuroraData aurora = itr.next();
+				if (!data.contains(aurora) || aurora.distanceSq(player, 0) > AURORA_RELEASE_DISTANCE_SQ) {
+					itr.remove();
+					Network.sendAuroraRemove(player, aurora);
 				}
 			}
+
+			nearby.clear();
+			grid.collect(player, AURORA_INTEREST_DISTANCE, nearby);
+			for (final AuroraData aurora : nearby)
+				if (subs.add(aurora))
+					Network.sendAurora(player, aurora);
+		}
+	}
+
+	private static void releaseAuroras(final World world) {
+		for (final EntityPlayer player : world.playerEntities) {
+			final Set<AuroraData> subs = auroraSubscriptions.get(player.getUniqueID());
+			if (subs != null && !subs.isEmpty()) {
+				subs.clear();
+				Network.sendAuroraClear((EntityPlayerMP) player);
+			}
 		}
 	}
 }
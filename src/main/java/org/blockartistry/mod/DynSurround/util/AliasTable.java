@@ -0,0 +1,124 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.blockartistry.mod.DynSurround.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Walker/Vose alias table for making weighted random selections in
+ * constant time. The table is built once from the item weights and each
+ * pick costs two calls to the random number generator regardless of the
+ * number of items. Weights are integers so the table is exact - the
+ * selection probabilities match a linear weight walk.
+ */
+public final class AliasTable<T> {
+
+	private final List<T> items;
+	private final int[] probability;
+	private final int[] alias;
+	private final int totalWeight;
+
+	public AliasTable(final List<T> items, final int[] weights) {
+		if (items.size() != weights.length)
+			throw new IllegalArgumentException("Item and weight counts differ");
+
+		final int n = weights.length;
+		this.items = new ArrayList<T>(items);
+		this.probability = new int[n];
+		this.alias = new int[n];
+
+		long total = 0;
+		for (final int w : weights) {
+			if (w < 0)
+				throw new IllegalArgumentException("Weights cannot be negative");
+			total += w;
+		}
+		if (total <= 0 || total > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Total weight out of range: " + total);
+		this.totalWeight = (int) total;
+
+		// Scale each weight by the number of items so that the average
+		// column "height" is exactly the total weight.
+		final long[] scaled = new long[n];
+		final int[] small = new int[n];
+		final int[] large = new int[n];
+		int smallCount = 0;
+		int largeCount = 0;
+		for (int i = 0; i < n; i++) {
+			scaled[i] = (long) weights[i] * n;
+			if (scaled[i] < total)
+				small[smallCount++] = i;
+			else
+				large[largeCount++] = i;
+		}
+
+		while (smallCount > 0 && largeCount > 0) {
+			final int s = small[--smallCount];
+			final int l = large[--largeCount];
+			this.probability[s] = (int) scaled[s];
+			this.alias[s] = l;
+			scaled[l] = scaled[l] + scaled[s] - total;
+			if (scaled[l] < total)
+				small[smallCount++] = l;
+			else
+				large[largeCount++] = l;
+		}
+
+		// Whatever remains is full height
+		while (largeCount > 0) {
+			final int l = large[--largeCount];
+			this.probability[l] = this.totalWeight;
+			this.alias[l] = l;
+		}
+		while (smallCount > 0) {
+			final int s = small[--smallCount];
+			this.probability[s] = this.totalWeight;
+			this.alias[s] = s;
+		}
+	}
+
+	public int size() {
+		return this.items.size();
+	}
+
+	public int getTotalWeight() {
+		return this.totalWeight;
+	}
+
+	public T get(final int index) {
+		return this.items.get(index);
+	}
+
+	public int nextIndex(final Random random) {
+		final int column = random.nextInt(this.probability.length);
+		return random.nextInt(this.totalWeight) < this.probability[column] ? column : this.alias[column];
+	}
+
+	public T next(final Random random) {
+		return this.items.get(nextIndex(random));
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.util;
+
+/*
+ * Fixed bucket histogram for recording durations in nanoseconds. Buckets
+ * are laid out in the same fashion as an HDR histogram: each power of two
+ * is split into SUB_BUCKETS linear buckets, which bounds the relative error
+ * of a reported value to 1/SUB_BUCKETS regardless of its magnitude.
+ * Recording is a couple of shifts and an array increment.
+ */
+public final class TimingHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	// Enough magnitudes to cover 2^40 ns, or roughly 18 minutes
+	private static final int MAGNITUDES = 40;
+	private static final int BUCKETS = (MAGNITUDES + 1) * SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKETS];
+	private long total;
+	private long max;
+	private long sum;
+
+	private static int bucketOf(final long value) {
+		if (value < SUB_BUCKETS)
+			return (int) Math.max(value, 0);
+		final int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+		if (magnitude > MAGNITUDES)
+			return BUCKETS - 1;
+		final int sub = (int) (value >>> (magnitude - 1)) & (SUB_BUCKETS - 1);
+		return magnitude * SUB_BUCKETS + sub;
+	}
+
+	/*
+	 * Highest value that falls into the bucket.
+	 */
+	private static long upperBoundOf(final int bucket) {
+		final int magnitude = bucket / SUB_BUCKETS;
+		final int sub = bucket % SUB_BUCKETS;
+		if (magnitude == 0)
+			return sub;
+		return ((long) (SUB_BUCKETS | sub) << (magnitude - 1)) + (1L << (magnitude - 1)) - 1;
+	}
+
+	public void record(final long nanos) {
+		this.counts[bucketOf(nanos)]++;
+		this.total++;
+		this.sum += nanos;
+		if (nanos > this.max)
+			this.max = nanos;
+	}
+
+	public void reset() {
+		for (int i = 0; i < this.counts.length; i++)
+			this.counts[i] = 0;
+		this.total = 0;
+		this.max = 0;
+		this.sum = 0;
+	}
+
+	public long getCount() {
+		return this.total;
+	}
+
+	public long getMax() {
+		return this.max;
+	}
+
+	public double getMean() {
+		return this.total == 0 ? 0.0D : (double) this.sum / this.total;
+	}
+
+	/*
+	 * Returns the value at the percentile (0-100). The result is the upper
+	 * bound of the bucket holding the value, capped at the recorded max.
+	 */
+	public long getValueAtPercentile(final double percentile) {
+		if (this.total == 0)
+			return 0;
+
+		final long target = Math.max(1, (long) Math.ceil(this.total * percentile / 100.0D));
+		long seen = 0;
+		for (int i = 0; i < this.counts.length; i++) {
+			seen += this.counts[i];
+			if (seen >= target)
+				return Math.min(upperBoundOf(i), this.max);
+		}
+		return this.max;
+	}
+}
@@ -62,7 +62,9 @@ public class XorShiftRandom extends Random {
 	private static final double DOUBLE_UNIT = 0x1.0p-53; // 1.0 / (1L << 53)
 	private static final float FLOAT_UNIT = 0x1.0p-24f; // 1.0f / (1 << 24)
 
-	private Double nextLocalGaussian = null;
+	// Primitive rather than a Double so nextGaussian() doesn't allocate
+	private double nextLocalGaussian;
+	private boolean haveNextLocalGaussian = false;
 	private long seed;
 
 	private static long mix64(long z) {
@@ -252,10 +254,9 @@ public class XorShiftRandom extends Random {
 
 	public double nextGaussian() {
 		// Use nextLocalGaussian instead of nextGaussian field
-		Double d = nextLocalGaussian;
-		if (d != null) {
-			nextLocalGaussian = null;
-			return d.doubleValue();
+		if (haveNextLocalGaussian) {
+			haveNextLocalGaussian = false;
+			return nextLocalGaussian;
 		}
 		double v1, v2, s;
 		do {
@@ -264,7 +265,8 @@ public class XorShiftRandom extends Random {
 			s = v1 * v1 + v2 * v2;
 		} while (s >= 1 || s == 0);
 		double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
-		nextLocalGaussian = new Double(v2 * multiplier);
+		nextLocalGaussian = v2 * multiplier;
+		haveNextLocalGaussian = true;
 		return v1 * multiplier;
 	}
 }
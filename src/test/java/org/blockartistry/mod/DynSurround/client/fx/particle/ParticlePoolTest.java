@@ -0,0 +1,216 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.fx.particle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.blockartistry.mod.DynSurround.util.Allocations;
+import org.junit.Test;
+
+import net.minecraft.client.particle.Particle;
+import net.minecraft.world.World;
+
+public class ParticlePoolTest {
+
+	/*
+	 * Particle that only does the pool bookkeeping so it can run without
+	 * a world.
+	 */
+	static final class TestParticle extends Particle implements IPooledParticle {
+		private final ParticlePool.Slot slot;
+		int resets;
+
+		TestParticle(final ParticlePool.Slot slot, final double x, final double y, final double z) {
+			super(null, x, y, z);
+			this.slot = slot;
+		}
+
+		@Override
+		public void reset(final double x, final double y, final double z) {
+			this.resets++;
+			this.isExpired = false;
+			// Not setPosition(); Vanilla allocates a new bounding box there
+			this.posX = x;
+			this.posY = y;
+			this.posZ = z;
+		}
+
+		@Override
+		public void onUpdate() {
+			this.slot.touch();
+		}
+
+		@Override
+		public void setExpired() {
+			super.setExpired();
+			this.slot.release();
+		}
+	}
+
+	static final class TestPool extends ParticlePool<TestParticle> {
+		private final int capacity;
+
+		TestPool(final int capacity) {
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected TestParticle create(final ParticlePool.Slot slot, final World world, final double x,
+				final double y, final double z) {
+			return new TestParticle(slot, x, y, z);
+		}
+
+		@Override
+		protected int getCapacity() {
+			return this.capacity;
+		}
+	}
+
+	private static TestParticle acquire(final TestPool pool) {
+		return pool.acquire(null, 1.0D, 2.0D, 3.0D);
+	}
+
+	private static List<TestParticle> fill(final TestPool pool, final int count) {
+		final List<TestParticle> list = new ArrayList<TestParticle>();
+		for (int i = 0; i < count; i++) {
+			final TestParticle p = acquire(pool);
+			assertNotNull(p);
+			list.add(p);
+		}
+		return list;
+	}
+
+	/*
+	 * A client tick where the ParticleManager updates the given particles.
+	 */
+	private static void tick(final List<TestParticle> live) {
+		ParticlePool.tick();
+		for (final TestParticle p : live)
+			p.onUpdate();
+	}
+
+	@Test
+	public void capIsHard() {
+		final TestPool pool = new TestPool(4);
+		final List<TestParticle> live = fill(pool, 4);
+		assertNull(acquire(pool));
+
+		// Particles that keep getting updated are never handed out again
+		for (int i = 0; i < 50; i++) {
+			tick(live);
+			assertNull(acquire(pool));
+		}
+	}
+
+	@Test
+	public void expiredParticleIsReusedAfterATick() {
+		final TestPool pool = new TestPool(3);
+		final List<TestParticle> live = fill(pool, 3);
+		final TestParticle expired = live.remove(0);
+		expired.setExpired();
+
+		// Still in the ParticleManager lists this tick
+		assertNull(acquire(pool));
+
+		tick(live);
+		final TestParticle reused = acquire(pool);
+		assertSame(expired, reused);
+		assertEquals(1, reused.resets);
+		assertNull(acquire(pool));
+	}
+
+	@Test
+	public void underCapCreatesRatherThanReusingEarly() {
+		final TestPool pool = new TestPool(4);
+		final TestParticle first = acquire(pool);
+		first.setExpired();
+		final TestParticle second = acquire(pool);
+		assertNotSame(first, second);
+		assertEquals(0, second.resets);
+	}
+
+	@Test
+	public void releaseIsOnlyCountedOnce() {
+		final TestPool pool = new TestPool(2);
+		final List<TestParticle> live = fill(pool, 2);
+		final TestParticle expired = live.remove(0);
+		expired.setExpired();
+		expired.setExpired();
+
+		tick(live);
+		assertSame(expired, acquire(pool));
+		live.add(expired);
+		assertNull(acquire(pool));
+	}
+
+	@Test
+	public void orphansAreReclaimed() {
+		final TestPool pool = new TestPool(2);
+		final List<TestParticle> live = fill(pool, 2);
+		// Dropped by the ParticleManager without being expired
+		final TestParticle orphan = live.remove(0);
+
+		for (int i = 0; i < 5; i++) {
+			tick(live);
+			assertNull(acquire(pool));
+		}
+
+		tick(live);
+		final TestParticle reclaimed = acquire(pool);
+		assertSame(orphan, reclaimed);
+		assertEquals(1, reclaimed.resets);
+		assertNull(acquire(pool));
+	}
+
+	@Test
+	public void reuseDoesNotAllocate() {
+		assumeTrue(Allocations.isSupported());
+		final TestPool pool = new TestPool(64);
+		final TestParticle[] live = new TestParticle[64];
+		final Runnable work = new Runnable() {
+			@Override
+			public void run() {
+				// A tick where every splash expires, then one spawning
+				// them again plus a request over the cap
+				ParticlePool.tick();
+				for (int i = 0; i < live.length; i++)
+					if (live[i] != null)
+						live[i].setExpired();
+				ParticlePool.tick();
+				for (int i = 0; i < live.length; i++)
+					live[i] = acquire(pool);
+				assertNull(acquire(pool));
+			}
+		};
+		assertEquals(0, Allocations.perRun(work, 2000, 1000));
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.client.storm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.blockartistry.mod.DynSurround.client.storm.PrecipitationGrid.Column;
+import org.blockartistry.mod.DynSurround.util.Allocations;
+import org.junit.Test;
+
+public class StormGeometryTest {
+
+	private static final int PLAYER_X = 100;
+	private static final int PLAYER_Y = 70;
+	private static final int PLAYER_Z = -37;
+	private static final int LIGHT = 0x00F00080;
+
+	/*
+	 * Every column reports the same thing except where the height is
+	 * overridden for the column directly east of the player.
+	 */
+	private static final class FlatSource implements StormGeometry.ColumnSource {
+		private final Column column = new Column();
+		private final Column east = new Column();
+
+		FlatSource(final boolean precipitation, final boolean dust, final boolean warm, final int height) {
+			for (final Column c : new Column[] { this.column, this.east }) {
+				c.hasPrecipitation = precipitation;
+				c.hasDust = dust;
+				c.isWarm = warm;
+				c.height = height;
+			}
+		}
+
+		FlatSource east(final int height) {
+			this.east.height = height;
+			return this;
+		}
+
+		@Override
+		public Column getColumn(final int x, final int z) {
+			return x == PLAYER_X + 1 && z == PLAYER_Z ? this.east : this.column;
+		}
+
+		@Override
+		public int getCombinedLight(final Column column, final int y) {
+			return LIGHT;
+		}
+	}
+
+	private static StormGeometry build(final StormGeometry.ColumnSource source, final int range) {
+		final StormGeometry geometry = new StormGeometry();
+		geometry.build(source, false, PLAYER_X, PLAYER_Y, PLAYER_Z, PLAYER_Y, range);
+		return geometry;
+	}
+
+	private static int side(final int range) {
+		return range * 2 + 1;
+	}
+
+	private static void assertAllType(final StormGeometry geometry, final int type) {
+		for (int i = 0; i < geometry.getCount(); i++)
+			assertEquals(type, geometry.type[i]);
+	}
+
+	@Test
+	public void rainFillsEveryColumn() {
+		final StormGeometry geometry = build(new FlatSource(true, false, true, 64), 5);
+		assertEquals(side(5) * side(5), geometry.getCount());
+		assertAllType(geometry, StormGeometry.RAIN);
+		for (int i = 0; i < geometry.getCount(); i++) {
+			assertEquals(240, geometry.lightSky[i]);
+			assertEquals(128, geometry.lightBlock[i]);
+		}
+	}
+
+	@Test
+	public void coldPrecipitationIsSnow() {
+		final StormGeometry geometry = build(new FlatSource(true, false, false, 64), 5);
+		assertEquals(side(5) * side(5), geometry.getCount());
+		assertAllType(geometry, StormGeometry.SNOW);
+		// Snow is lit brighter than the column
+		final int light = (LIGHT * 3 + 15728880) / 4;
+		for (int i = 0; i < geometry.getCount(); i++) {
+			assertEquals(light >> 16 & 65535, geometry.lightSky[i]);
+			assertEquals(light & 65535, geometry.lightBlock[i]);
+		}
+	}
+
+	@Test
+	public void warmDustIsDust() {
+		final StormGeometry geometry = build(new FlatSource(false, true, true, 64), 4);
+		assertEquals(side(4) * side(4), geometry.getCount());
+		assertAllType(geometry, StormGeometry.DUST);
+	}
+
+	@Test
+	public void coldDustIsSnow() {
+		final StormGeometry geometry = build(new FlatSource(false, true, false, 64), 4);
+		assertEquals(side(4) * side(4), geometry.getCount());
+		assertAllType(geometry, StormGeometry.SNOW);
+	}
+
+	@Test
+	public void noWeatherBuildsNothing() {
+		assertEquals(0, build(new FlatSource(false, false, true, 64), 5).getCount());
+	}
+
+	@Test
+	public void verticalExtentIsClampedToPrecipitationHeight() {
+		// Ground well below: the quad spans the player's vertical range
+		StormGeometry geometry = build(new FlatSource(true, false, true, 40), 5);
+		for (int i = 0; i < geometry.getCount(); i++) {
+			assertEquals(PLAYER_Y - 5, geometry.minY[i]);
+			assertEquals(PLAYER_Y + 5, geometry.maxY[i]);
+		}
+
+		// Ground inside the range: the bottom is raised to the ground
+		geometry = build(new FlatSource(true, false, true, PLAYER_Y + 2), 5);
+		for (int i = 0; i < geometry.getCount(); i++) {
+			assertEquals(PLAYER_Y + 2, geometry.minY[i]);
+			assertEquals(PLAYER_Y + 5, geometry.maxY[i]);
+		}
+
+		// A column whose ground is above the range has no quad
+		geometry = build(new FlatSource(true, false, true, 40).east(PLAYER_Y + 20), 5);
+		assertEquals(side(5) * side(5) - 1, geometry.getCount());
+		for (int i = 0; i < geometry.getCount(); i++)
+			assertTrue(geometry.gridX[i] != PLAYER_X + 1 || geometry.gridZ[i] != PLAYER_Z);
+	}
+
+	@Test
+	public void cornersStayWithinColumn() {
+		final StormGeometry geometry = build(new FlatSource(true, false, true, 64), 10);
+		for (int i = 0; i < geometry.getCount(); i++) {
+			final int gx = geometry.gridX[i];
+			final int gz = geometry.gridZ[i];
+			// The player's own column has no facing, same as Vanilla
+			if (gx == PLAYER_X && gz == PLAYER_Z)
+				continue;
+			final double cx = gx + 0.5D;
+			final double cz = gz + 0.5D;
+			assertTrue(Math.abs(geometry.x0[i] - cx) <= 0.5D + 1.0E-6D);
+			assertTrue(Math.abs(geometry.x1[i] - cx) <= 0.5D + 1.0E-6D);
+			assertTrue(Math.abs(geometry.z0[i] - cz) <= 0.5D + 1.0E-6D);
+			assertTrue(Math.abs(geometry.z1[i] - cz) <= 0.5D + 1.0E-6D);
+			// The two corners are opposite each other about the center
+			assertEquals(cx, (geometry.x0[i] + geometry.x1[i]) / 2.0D, 1.0E-6D);
+			assertEquals(cz, (geometry.z0[i] + geometry.z1[i]) / 2.0D, 1.0E-6D);
+		}
+	}
+
+	@Test
+	public void rangeIsCappedAtMaximum() {
+		final StormGeometry geometry = build(new FlatSource(true, false, true, 40), 15);
+		assertEquals(21 * 21, geometry.getCount());
+		for (int i = 0; i < geometry.getCount(); i++) {
+			assertTrue(Math.abs(geometry.gridX[i] - PLAYER_X) <= 10);
+			assertTrue(Math.abs(geometry.gridZ[i] - PLAYER_Z) <= 10);
+			assertTrue(geometry.maxY[i] <= PLAYER_Y + 10);
+		}
+	}
+
+	@Test
+	public void rebuildDoesNotAllocate() {
+		assumeTrue(Allocations.isSupported());
+		final StormGeometry geometry = new StormGeometry();
+		final FlatSource[] sources = new FlatSource[] { new FlatSource(true, false, true, 64),
+				new FlatSource(true, false, false, 64), new FlatSource(false, true, true, 64) };
+		final Runnable work = new Runnable() {
+			@Override
+			public void run() {
+				for (final FlatSource source : sources)
+					geometry.build(source, false, PLAYER_X, PLAYER_Y, PLAYER_Z, PLAYER_Y, 10);
+			}
+		};
+		assertEquals(0, Allocations.perRun(work, 2000, 1000));
+	}
+}
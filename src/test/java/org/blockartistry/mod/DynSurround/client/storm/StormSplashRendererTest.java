@@ -0,0 +1,245 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.blockartistry.mod.DynSurround.client.storm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.blockartistry.mod.DynSurround.client.fx.particle.ParticlePool;
+import org.blockartistry.mod.DynSurround.client.fx.particle.ParticleRainPooled;
+import org.blockartistry.mod.DynSurround.client.storm.PrecipitationGrid.Column;
+import org.blockartistry.mod.DynSurround.util.Allocations;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.particle.Particle;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldType;
+import net.minecraft.world.biome.Biome;
+
+public class StormSplashRendererTest {
+
+	private static final int PLAYER_X = 100;
+	private static final int PLAYER_Y = 70;
+	private static final int PLAYER_Z = -37;
+	private static final int SAMPLES = 100;
+
+	@BeforeClass
+	public static void bootstrap() {
+		Bootstrap.register();
+	}
+
+	/*
+	 * Same column everywhere.
+	 */
+	private static final class FlatSource implements StormGeometry.ColumnSource {
+		private final Column column = new Column();
+
+		FlatSource(final boolean precipitation, final boolean dust, final boolean warm, final int height) {
+			this.column.hasPrecipitation = precipitation;
+			this.column.hasDust = dust;
+			this.column.isWarm = warm;
+			this.column.height = height;
+		}
+
+		@Override
+		public Column getColumn(final int x, final int z) {
+			return this.column;
+		}
+
+		@Override
+		public int getCombinedLight(final Column column, final int y) {
+			return 0;
+		}
+	}
+
+	/*
+	 * Stone all the way down.
+	 */
+	private static final class StoneBlocks implements IBlockAccess {
+		private final IBlockState stone = Blocks.STONE.getDefaultState();
+
+		@Override
+		public TileEntity getTileEntity(final BlockPos pos) {
+			return null;
+		}
+
+		@Override
+		public int getCombinedLight(final BlockPos pos, final int lightValue) {
+			return 0;
+		}
+
+		@Override
+		public IBlockState getBlockState(final BlockPos pos) {
+			return this.stone;
+		}
+
+		@Override
+		public boolean isAirBlock(final BlockPos pos) {
+			return false;
+		}
+
+		@Override
+		public Biome getBiome(final BlockPos pos) {
+			return null;
+		}
+
+		@Override
+		public int getStrongPower(final BlockPos pos, final EnumFacing direction) {
+			return 0;
+		}
+
+		@Override
+		public WorldType getWorldType() {
+			return WorldType.DEFAULT;
+		}
+
+		@Override
+		public boolean isSideSolid(final BlockPos pos, final EnumFacing side, final boolean _default) {
+			return true;
+		}
+	}
+
+	/*
+	 * Keeps the particles handed out so a test can expire them the way
+	 * the ParticleManager would.
+	 */
+	private static final class CollectingSink implements StormSplashRenderer.ParticleSink {
+		final Particle[] particles = new Particle[SAMPLES];
+		int count;
+
+		@Override
+		public void addEffect(final Particle particle) {
+			this.particles[this.count++] = particle;
+		}
+
+		void expireAll() {
+			for (int i = 0; i < this.count; i++)
+				this.particles[i].setExpired();
+			this.count = 0;
+		}
+	}
+
+	/*
+	 * Splashes come from a rain pool of its own so each test starts with
+	 * an empty pool rather than whatever the shared ParticleFactory pool
+	 * was left holding.
+	 */
+	private static final class TestRenderer extends StormSplashRenderer {
+		private final ParticleRainPooled.Factory rain = new ParticleRainPooled.Factory();
+
+		@Override
+		protected Particle getBlockParticle(final IBlockState state, final boolean dust, final World world,
+				final double x, final double y, final double z) {
+			return dust ? null : this.rain.getEntityFX(0, world, x, y, z, 0, 0, 0, NO_PARMS);
+		}
+	}
+
+	// Written so the JIT can't drop the allocation being measured
+	static AxisAlignedBB box;
+
+	private final TestRenderer renderer = new TestRenderer();
+	private final StoneBlocks blocks = new StoneBlocks();
+	private final CollectingSink sink = new CollectingSink();
+
+	private int sample(final FlatSource source) {
+		return this.renderer.sampleSplash(source, this.blocks, null, this.sink, PLAYER_X, PLAYER_Y, PLAYER_Z,
+				SAMPLES);
+	}
+
+	@Test
+	public void rainSplashesOnTheGround() {
+		assertEquals(SAMPLES, sample(new FlatSource(true, false, true, 64)));
+		assertEquals(SAMPLES, this.sink.count);
+
+		// The sound point is one of the samples: on top of the stone
+		assertEquals(64.1F, this.renderer.spawnY, 1.0E-6D);
+		assertTrue(this.renderer.spawnX >= PLAYER_X - StormSplashRenderer.RANGE + 1);
+		assertTrue(this.renderer.spawnX < PLAYER_X + StormSplashRenderer.RANGE);
+		assertTrue(this.renderer.spawnZ >= PLAYER_Z - StormSplashRenderer.RANGE + 1);
+		assertTrue(this.renderer.spawnZ < PLAYER_Z + StormSplashRenderer.RANGE);
+	}
+
+	@Test
+	public void groundOutOfRangeIsSkipped() {
+		assertEquals(0, sample(new FlatSource(true, false, true, PLAYER_Y + StormSplashRenderer.RANGE + 1)));
+		assertEquals(0, sample(new FlatSource(true, false, true, PLAYER_Y - StormSplashRenderer.RANGE - 1)));
+		assertEquals(0, this.sink.count);
+	}
+
+	@Test
+	public void snowAndClearSkiesDontSplash() {
+		assertEquals(0, sample(new FlatSource(true, false, false, 64)));
+		assertEquals(0, sample(new FlatSource(false, false, true, 64)));
+		assertEquals(0, this.sink.count);
+	}
+
+	@Test
+	public void dustSamplesWithoutParticles() {
+		assertEquals(SAMPLES, sample(new FlatSource(false, true, false, 64)));
+		assertEquals(0, this.sink.count);
+	}
+
+	/*
+	 * Steady rain: every tick the last tick's splashes expire and the same
+	 * number are spawned again from the pool. Each reused splash costs the
+	 * bounding box Vanilla's Particle.setPosition() allocates when the
+	 * particle is reset, and nothing else.
+	 */
+	@Test
+	public void steadyStateOnlyAllocatesBoundingBoxes() {
+		assumeTrue(Allocations.isSupported());
+
+		final long boxBytes = Allocations.perRun(new Runnable() {
+			@Override
+			public void run() {
+				box = new AxisAlignedBB(0.0D, 0.0D, 0.0D, 1.0D, 1.0D, 1.0D);
+			}
+		}, 2000, 1000);
+		assertTrue(boxBytes > 0);
+
+		final FlatSource source = new FlatSource(true, false, true, 64);
+		final Runnable work = new Runnable() {
+			@Override
+			public void run() {
+				sink.expireAll();
+				ParticlePool.tick();
+				sample(source);
+				// Every splash was served; none dropped at the cap
+				assertEquals(SAMPLES, sink.count);
+			}
+		};
+		assertEquals(SAMPLES * boxBytes, Allocations.perRun(work, 2000, 1000));
+	}
+}
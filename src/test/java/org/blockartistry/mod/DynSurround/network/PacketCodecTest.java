@@ -0,0 +1,212 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.blockartistry.mod.DynSurround.client.DamageEffectHandler.HealthData;
+import org.blockartistry.mod.DynSurround.data.AuroraData;
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+public class PacketCodecTest {
+
+	// Payload sizes of the packets the bundle replaced: PacketHealthChange
+	// (UUID, three floats, boolean, int), PacketAurora (int, long, two
+	// ints, two bytes) and PacketRainIntensity (float, int).
+	private static final int OLD_HEALTH_BYTES = 16 + 12 + 1 + 4;
+	private static final int OLD_AURORA_BYTES = 4 + 8 + 8 + 2;
+	private static final int OLD_RAIN_BYTES = 4 + 4;
+
+	private static final int[] BOUNDARIES = { 0, 1, -1, 63, -64, 64, -65, 127, 128, 16383, 16384,
+			Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE - 1, Integer.MIN_VALUE + 1 };
+
+	private static int varIntBytes(final int value) {
+		final ByteBuf buf = Unpooled.buffer();
+		PacketCodec.writeVarInt(buf, value);
+		return buf.readableBytes();
+	}
+
+	private static int signedVarIntBytes(final int value) {
+		final ByteBuf buf = Unpooled.buffer();
+		PacketCodec.writeSignedVarInt(buf, value);
+		return buf.readableBytes();
+	}
+
+	@Test
+	public void varIntRoundTrip() {
+		for (final int value : BOUNDARIES) {
+			final ByteBuf buf = Unpooled.buffer();
+			PacketCodec.writeVarInt(buf, value);
+			assertEquals(value, PacketCodec.readVarInt(buf));
+			assertEquals(0, buf.readableBytes());
+		}
+	}
+
+	@Test
+	public void varIntLengths() {
+		assertEquals(1, varIntBytes(0));
+		assertEquals(1, varIntBytes(127));
+		assertEquals(2, varIntBytes(128));
+		assertEquals(2, varIntBytes(16383));
+		assertEquals(3, varIntBytes(16384));
+		assertEquals(5, varIntBytes(Integer.MAX_VALUE));
+		// Negative values are treated as unsigned and take the full length
+		assertEquals(5, varIntBytes(-1));
+		assertEquals(5, varIntBytes(Integer.MIN_VALUE));
+	}
+
+	@Test
+	public void signedVarIntRoundTrip() {
+		for (final int value : BOUNDARIES) {
+			final ByteBuf buf = Unpooled.buffer();
+			PacketCodec.writeSignedVarInt(buf, value);
+			assertEquals(value, PacketCodec.readSignedVarInt(buf));
+			assertEquals(0, buf.readableBytes());
+		}
+	}
+
+	@Test
+	public void signedVarIntLengths() {
+		assertEquals(1, signedVarIntBytes(0));
+		assertEquals(1, signedVarIntBytes(1));
+		assertEquals(1, signedVarIntBytes(-1));
+		assertEquals(1, signedVarIntBytes(63));
+		assertEquals(1, signedVarIntBytes(-64));
+		assertEquals(2, signedVarIntBytes(64));
+		assertEquals(2, signedVarIntBytes(-65));
+		assertEquals(5, signedVarIntBytes(Integer.MAX_VALUE));
+		assertEquals(5, signedVarIntBytes(Integer.MIN_VALUE));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void overlongVarIntIsRejected() {
+		final ByteBuf buf = Unpooled.buffer();
+		for (int i = 0; i < 6; i++)
+			buf.writeByte(0x80);
+		PacketCodec.readVarInt(buf);
+	}
+
+	@Test
+	public void quantizationIsEighthBlock() {
+		// Values on the 1/8 grid survive exactly
+		for (int i = -64; i <= 64; i++) {
+			final float value = i / 8.0F;
+			assertEquals(value, PacketCodec.dequantize(PacketCodec.quantize(value)), 0.0F);
+		}
+
+		// Everything else lands on the nearest grid point
+		for (float value = -20.0F; value <= 20.0F; value += 0.037F)
+			assertEquals(value, PacketCodec.dequantize(PacketCodec.quantize(value)), 1.0F / 16.0F + 1.0E-5F);
+	}
+
+	@Test
+	public void relativePositionsAcrossNegativeChunks() {
+		final int[] anchors = { -100, -2, -1, 0, 1, 100 };
+		for (final int anchor : anchors) {
+			final float origin = anchor << 4;
+			for (float offset = -48.0F; offset <= 48.0F; offset += 0.731F) {
+				final float value = origin + offset;
+				final ByteBuf buf = Unpooled.buffer();
+				PacketCodec.writeRelative(buf, value, anchor);
+				assertEquals("anchor " + anchor + " value " + value, value, PacketCodec.readRelative(buf, anchor),
+						1.0F / 16.0F + 1.0E-4F);
+				// Within three chunks of the anchor the offset fits in
+				// two bytes
+				assertTrue(buf.writerIndex() <= 2);
+			}
+		}
+
+		// A position on the other side of the origin from the anchor
+		final ByteBuf buf = Unpooled.buffer();
+		PacketCodec.writeRelative(buf, 5.5F, -1);
+		assertEquals(5.5F, PacketCodec.readRelative(buf, -1), 0.0F);
+	}
+
+	@Test
+	public void newerVersionIsSkipped() {
+		final ByteBuf buf = Unpooled.buffer();
+		buf.writeByte(PacketCodec.VERSION + 1);
+		buf.writeInt(12345);
+		assertFalse(PacketCodec.readVersion(buf));
+		assertEquals(0, buf.readableBytes());
+
+		final ByteBuf current = Unpooled.buffer();
+		PacketCodec.writeVersion(current);
+		assertTrue(PacketCodec.readVersion(current));
+	}
+
+	private static HealthData health() {
+		return new HealthData(2817, -341.7F, 71.8F, 1022.3F, true, 6);
+	}
+
+	private static AuroraData aurora() {
+		return new AuroraData(0, -2750, 3120, 8675309L, 3, 1);
+	}
+
+	private static int encodedSize(final PacketEnvironment packet) {
+		final ByteBuf buf = Unpooled.buffer();
+		packet.toBytes(buf);
+		final int size = buf.readableBytes();
+
+		// The payload decodes without leaving anything behind
+		new PacketEnvironment().fromBytes(buf);
+		assertEquals(0, buf.readableBytes());
+		return size;
+	}
+
+	@Test
+	public void bundleIsSmallerThanOldLayout() {
+		final PacketEnvironment rain = new PacketEnvironment();
+		rain.setRainIntensity(0.75F, 0);
+		final int rainBytes = encodedSize(rain);
+		assertTrue("rain " + rainBytes, rainBytes < OLD_RAIN_BYTES);
+
+		final PacketEnvironment auroraOnly = new PacketEnvironment();
+		auroraOnly.addAurora(aurora());
+		final int auroraBytes = encodedSize(auroraOnly);
+		assertTrue("aurora " + auroraBytes, auroraBytes < OLD_AURORA_BYTES);
+
+		final PacketEnvironment healthOnly = new PacketEnvironment();
+		healthOnly.setAnchor(-22, 63);
+		healthOnly.addHealth(health());
+		final int healthBytes = encodedSize(healthOnly);
+		assertTrue("health " + healthBytes, healthBytes < OLD_HEALTH_BYTES / 2);
+
+		// A busy tick: rain, an aurora and four popoffs in one message
+		final PacketEnvironment bundle = new PacketEnvironment();
+		bundle.setAnchor(-22, 63);
+		bundle.setRainIntensity(0.75F, 0);
+		bundle.addAurora(aurora());
+		for (int i = 0; i < 4; i++)
+			bundle.addHealth(health());
+		final int bundleBytes = encodedSize(bundle);
+		final int oldBytes = OLD_RAIN_BYTES + OLD_AURORA_BYTES + 4 * OLD_HEALTH_BYTES;
+		assertTrue("bundle " + bundleBytes + " vs " + oldBytes, bundleBytes * 2 < oldBytes);
+	}
+}
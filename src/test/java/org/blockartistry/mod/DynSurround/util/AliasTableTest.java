@@ -0,0 +1,151 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.blockartistry.mod.DynSurround.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AliasTableTest {
+
+	private static final int SAMPLES = 200000;
+
+	// Chi-square critical value at p = 0.001 indexed by degrees of freedom
+	private static final double[] CHI_SQUARE_999 = { 0, 10.83, 13.82, 16.27, 18.47, 20.52, 22.46, 24.32 };
+
+	/*
+	 * Feeds nextInt() from a fixed script so every (column, roll) pair
+	 * the table can see is visited exactly once.
+	 */
+	private static final class ScriptedRandom extends Random {
+		private static final long serialVersionUID = 1L;
+		private int column;
+		private int roll;
+
+		@Override
+		public int nextInt(final int bound) {
+			final int result = this.column;
+			this.column = this.roll;
+			return result;
+		}
+
+		void set(final int column, final int roll) {
+			this.column = column;
+			this.roll = roll;
+		}
+	}
+
+	private static List<Integer> items(final int count) {
+		final Integer[] items = new Integer[count];
+		for (int i = 0; i < count; i++)
+			items[i] = i;
+		return Arrays.asList(items);
+	}
+
+	private static int[] exactCounts(final AliasTable<Integer> table) {
+		final int[] counts = new int[table.size()];
+		final ScriptedRandom random = new ScriptedRandom();
+		for (int column = 0; column < table.size(); column++)
+			for (int roll = 0; roll < table.getTotalWeight(); roll++) {
+				random.set(column, roll);
+				counts[table.nextIndex(random)]++;
+			}
+		return counts;
+	}
+
+	private static int[] sample(final AliasTable<Integer> table, final long seed) {
+		final int[] counts = new int[table.size()];
+		final Random random = new Random(seed);
+		for (int i = 0; i < SAMPLES; i++)
+			counts[table.nextIndex(random)]++;
+		return counts;
+	}
+
+	@Test
+	public void probabilitiesAreExact() {
+		final int[][] cases = { { 1, 2, 3, 4, 10 }, { 7 }, { 1, 1, 1, 1 }, { 100, 1 }, { 0, 5, 0, 3 },
+				{ 3, 0, 0, 0, 0, 1 }, { 13, 2, 9, 40, 1, 1, 6 } };
+		for (final int[] weights : cases) {
+			final AliasTable<Integer> table = new AliasTable<Integer>(items(weights.length), weights);
+			final int[] counts = exactCounts(table);
+			// Every column is rolled totalWeight times so an item with
+			// weight w is hit exactly w * n times.
+			for (int i = 0; i < weights.length; i++)
+				assertEquals(Arrays.toString(weights) + " item " + i, weights[i] * weights.length, counts[i]);
+		}
+	}
+
+	@Test
+	public void sampledFrequenciesMatchWeights() {
+		final int[] weights = { 1, 2, 3, 4, 10, 20, 60 };
+		final AliasTable<Integer> table = new AliasTable<Integer>(items(weights.length), weights);
+		final int[] counts = sample(table, 42L);
+
+		double chiSquare = 0;
+		for (int i = 0; i < weights.length; i++) {
+			final double expected = (double) SAMPLES * weights[i] / table.getTotalWeight();
+			final double delta = counts[i] - expected;
+			chiSquare += delta * delta / expected;
+		}
+		assertTrue("chi-square " + chiSquare, chiSquare < CHI_SQUARE_999[weights.length - 1]);
+	}
+
+	@Test
+	public void zeroWeightsAreNeverPicked() {
+		final int[] weights = { 0, 5, 0, 3, 0 };
+		final int[] counts = sample(new AliasTable<Integer>(items(weights.length), weights), 7L);
+		assertEquals(0, counts[0]);
+		assertEquals(0, counts[2]);
+		assertEquals(0, counts[4]);
+		assertEquals(SAMPLES, counts[1] + counts[3]);
+	}
+
+	@Test
+	public void singleEntryIsAlwaysPicked() {
+		final AliasTable<String> table = new AliasTable<String>(Arrays.asList("only"), new int[] { 3 });
+		final Random random = new Random(1L);
+		for (int i = 0; i < 1000; i++)
+			assertEquals("only", table.next(random));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void allZeroWeightsAreRejected() {
+		new AliasTable<Integer>(items(3), new int[] { 0, 0, 0 });
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeWeightsAreRejected() {
+		new AliasTable<Integer>(items(2), new int[] { 5, -1 });
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void mismatchedCountsAreRejected() {
+		new AliasTable<Integer>(items(2), new int[] { 1 });
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of Dynamic Surroundings, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) OreCruncher
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.blockartistry.mod.DynSurround.util;
+
+import java.lang.management.ManagementFactory;
+
+/*
+ * Counts the heap allocated by the calling thread through the HotSpot
+ * extension of ThreadMXBean. Tests skip when the JVM doesn't offer it.
+ */
+public final class Allocations {
+
+	private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private Allocations() {
+	}
+
+	public static boolean isSupported() {
+		if (!(THREADS instanceof com.sun.management.ThreadMXBean))
+			return false;
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+		return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+	}
+
+	private static long allocated() {
+		return ((com.sun.management.ThreadMXBean) THREADS)
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/*
+	 * Runs the work warmup times so one time setup and JIT compilation are
+	 * out of the way, then returns the average bytes allocated by each of
+	 * the next rounds runs. The counter's own small overhead is spread over
+	 * the rounds and divides down to zero.
+	 */
+	public static long perRun(final Runnable work, final int warmup, final int rounds) {
+		for (int i = 0; i < warmup; i++)
+			work.run();
+		final long before = allocated();
+		for (int i = 0; i < rounds; i++)
+			work.run();
+		return (allocated() - before) / rounds;
+	}
+}